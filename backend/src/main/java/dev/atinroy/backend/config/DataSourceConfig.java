@@ -0,0 +1,113 @@
+package dev.atinroy.backend.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class DataSourceConfig {
+
+    // Each shard's sequences start at shard << 48. Hibernate hands out ids from one
+    // in-memory block per sequence whichever shard the row lands on, so the ranges
+    // must not overlap. Up to 32 shards keep every id below 2^53 for JSON clients.
+    private static final int SHARD_ID_BITS = 48;
+
+    // The pool behind spring.datasource, wrapped by the routing dataSource below
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRouter replicaRouter(HikariDataSource primaryDataSource,
+            @Value("${app.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${app.datasource.max-lag}") Duration maxLag,
+            @Value("${app.datasource.read-your-writes}") Duration readYourWrites,
+            MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicaPools = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            replicaPools.add(pool(primaryDataSource, url, "replica-" + (replicaPools.size() + 1), true));
+        }
+        return new ReplicaRouter(primaryDataSource, replicaPools, maxLag, readYourWrites, meterRegistry);
+    }
+
+    // Connections are fetched on first statement, once the transaction's read-only
+    // flag is known, so @Transactional(readOnly = true) work on the directory shard
+    // can go to one of its replicas
+    @Bean
+    public ShardRouter shardRouter(HikariDataSource primaryDataSource, ReplicaRouter replicaRouter,
+            @Value("${app.sharding.shard-urls}") List<String> shardUrls,
+            @Value("${app.sharding.virtual-nodes}") int virtualNodes) {
+        LazyConnectionDataSourceProxy directory = new LazyConnectionDataSourceProxy(replicaRouter.writeDataSource());
+        directory.setReadOnlyDataSource(replicaRouter.readDataSource());
+
+        List<HikariDataSource> shardPools = new ArrayList<>();
+        for (String url : shardUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            shardPools.add(pool(primaryDataSource, url, "shard-" + (shardPools.size() + 1), false));
+        }
+        return new ShardRouter(directory, shardPools, virtualNodes);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRouter shardRouter) {
+        return shardRouter.dataSource();
+    }
+
+    // spring.flyway migrates the directory shard, the others get the same migrations
+    @Bean
+    public FlywayMigrationStrategy shardedMigrationStrategy(ShardRouter shardRouter) {
+        return flyway -> {
+            flyway.migrate();
+            for (int shard = 1; shard < shardRouter.getShardCount(); shard++) {
+                DataSource dataSource = shardRouter.getShardDataSource(shard);
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(dataSource)
+                        .load()
+                        .migrate();
+
+                long firstId = (long) shard << SHARD_ID_BITS;
+                new JdbcTemplate(dataSource).queryForList(
+                        "SELECT setval(CAST(format('%I.%I', schemaname, sequencename) AS regclass), ?) "
+                                + "FROM pg_sequences WHERE schemaname = current_schema() "
+                                + "AND COALESCE(last_value, 0) < ?",
+                        Long.class, firstId, firstId);
+            }
+        };
+    }
+
+    // Helper methods
+
+    private static HikariDataSource pool(HikariDataSource primaryDataSource, String url, String poolName,
+            boolean readOnly) {
+        HikariConfig config = new HikariConfig();
+        primaryDataSource.copyStateTo(config);
+        config.setJdbcUrl(url.trim());
+        config.setPoolName(poolName);
+        config.setReadOnly(readOnly);
+        return new HikariDataSource(config);
+    }
+}
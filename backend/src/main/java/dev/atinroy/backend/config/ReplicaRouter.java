@@ -0,0 +1,209 @@
+package dev.atinroy.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.atinroy.backend.security.CurrentUser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Picks the database for read-only transactions. A replica is used only while its
+// last measured lag is within maxLag, and never for a user whose own write
+// committed within the read-your-writes window, so they always see what they just
+// wrote. Everything else, and any read a replica cannot serve, goes to the primary.
+//
+// Recent writers are tracked per application instance; a user whose next request
+// lands on another instance within the window may read from a replica there, but
+// only one that is within maxLag.
+@Slf4j
+public class ReplicaRouter implements DisposableBean {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final Duration readYourWritesWindow;
+    private final MeterRegistry meterRegistry;
+    private final Counter primaryReads;
+    private final Map<Long, Instant> recentWriters = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRouter(DataSource primary, List<HikariDataSource> replicaPools, Duration maxLag,
+            Duration readYourWritesWindow, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.maxLag = maxLag;
+        this.readYourWritesWindow = readYourWritesWindow;
+        this.meterRegistry = meterRegistry;
+        this.primaryReads = readCounter("primary");
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+
+        for (Replica replica : replicas) {
+            Gauge.builder("app.datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    // Read-only connections, handed to LazyConnectionDataSourceProxy
+    public DataSource readDataSource() {
+        return new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return getReadConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return getReadConnection();
+            }
+        };
+    }
+
+    // Read-write connections. Remembers the current user once the transaction
+    // commits, so their reads stay on the primary until replicas have caught up.
+    // Without replicas every read is on the primary and nobody is remembered.
+    public DataSource writeDataSource() {
+        return new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                registerWrite();
+                return super.getConnection();
+            }
+        };
+    }
+
+    // Replica lag is measured against the primary's WAL position. A replica that
+    // has replayed up to it is current however long ago its last transaction was;
+    // otherwise the lag is the age of its last replayed transaction. An unreachable
+    // replica counts as infinitely behind until it answers again.
+    @Scheduled(fixedDelayString = "${app.datasource.lag-check-interval}")
+    public void checkReplicaLag() {
+        // Writers past the read-your-writes window are forgotten, replicas or not
+        Instant expired = Instant.now().minus(readYourWritesWindow);
+        recentWriters.values().removeIf(wroteAt -> wroteAt.isBefore(expired));
+        if (replicas.isEmpty()) {
+            return;
+        }
+
+        String primaryLsn;
+        try (Connection connection = primary.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT CAST(pg_current_wal_lsn() AS text)")) {
+            rs.next();
+            primaryLsn = rs.getString(1);
+        } catch (SQLException e) {
+            log.warn("Could not read the primary WAL position: {}", e.getMessage());
+            return;
+        }
+
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool().getConnection();
+                    PreparedStatement statement = connection.prepareStatement(
+                            "SELECT COALESCE(pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn), true), "
+                                    + "COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)")) {
+                statement.setString(1, primaryLsn);
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    replica.lagSeconds = rs.getBoolean(1) ? 0.0 : rs.getDouble(2);
+                }
+            } catch (SQLException e) {
+                replica.lagSeconds = Double.POSITIVE_INFINITY;
+                log.warn("Replica {} is unavailable: {}", replica.name(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.pool().close());
+    }
+
+    // Helper methods
+
+    private Connection getReadConnection() throws SQLException {
+        if (!replicas.isEmpty() && !wroteRecently(CurrentUser.getId())) {
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                if (replica.lagSeconds > maxLag.toMillis() / 1000.0) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.pool().getConnection();
+                    replica.reads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.lagSeconds = Double.POSITIVE_INFINITY;
+                    log.warn("Replica {} is unavailable: {}", replica.name(), e.getMessage());
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    private void registerWrite() {
+        Long userId = CurrentUser.getId();
+        if (replicas.isEmpty() || userId == null || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(userId, Instant.now());
+            }
+        });
+    }
+
+    private boolean wroteRecently(Long userId) {
+        Instant wroteAt = userId != null ? recentWriters.get(userId) : null;
+        return wroteAt != null && wroteAt.isAfter(Instant.now().minus(readYourWritesWindow));
+    }
+
+    private Counter readCounter(String target) {
+        return Counter.builder("app.datasource.reads")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    private final class Replica {
+
+        private final HikariDataSource pool;
+        private final Counter reads;
+
+        // Unknown until the first lag check
+        private volatile double lagSeconds = Double.POSITIVE_INFINITY;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+            this.reads = readCounter(pool.getPoolName());
+        }
+
+        private HikariDataSource pool() {
+            return pool;
+        }
+
+        private String name() {
+            return pool.getPoolName();
+        }
+    }
+}
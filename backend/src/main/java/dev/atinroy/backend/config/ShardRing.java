@@ -0,0 +1,50 @@
+package dev.atinroy.backend.config;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Consistent hashing of user ids onto shards. Each shard owns many points on a
+// 64-bit ring and a user belongs to the first point at or after the hash of their
+// id. Adding a shard only takes over the users landing on its own points, about
+// 1/N of them, where userId % N would move almost everyone.
+public class ShardRing {
+
+    private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+    private final int shardCount;
+
+    public ShardRing(int shardCount, int virtualNodes) {
+        this.shardCount = shardCount;
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.put(hash("shard-" + shard + "#" + node), shard);
+            }
+        }
+    }
+
+    public int shardFor(long userId) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        Map.Entry<Long, Integer> point = ring.ceilingEntry(hash(Long.toString(userId)));
+        return (point != null ? point : ring.firstEntry()).getValue();
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    // MD5 rather than hashCode, so placement never changes between JVMs or releases
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package dev.atinroy.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.atinroy.backend.security.CurrentUser;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Sends every connection to one shard. Shard 0 is spring.datasource, which also
+// holds the user directory: every users row, for logins by email or username.
+// Each user's data lives on their home shard, picked by ShardRing, next to a copy
+// of their users row for the foreign keys (see UserService.provisionHomeShard).
+//
+// The shard is the one bound with callOnShard / callForUser if any, else the
+// authenticated user's home shard, else the directory. It is resolved when a
+// transaction takes its connection, so a binding only applies to transactions
+// started inside it.
+public class ShardRouter implements DisposableBean {
+
+    public static final int DIRECTORY = 0;
+
+    private final DataSource directory;
+    private final List<HikariDataSource> shardPools;
+    private final ShardRing ring;
+    private final ThreadLocal<Integer> boundShard = new ThreadLocal<>();
+
+    public ShardRouter(DataSource directory, List<HikariDataSource> shardPools, int virtualNodes) {
+        this.directory = directory;
+        this.shardPools = shardPools;
+        this.ring = new ShardRing(shardPools.size() + 1, virtualNodes);
+    }
+
+    public DataSource dataSource() {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            targets.put(shard, getShardDataSource(shard));
+        }
+
+        AbstractRoutingDataSource dataSource = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return currentShard();
+            }
+        };
+        dataSource.setTargetDataSources(targets);
+        dataSource.setLenientFallback(false);
+        dataSource.initialize();
+        return dataSource;
+    }
+
+    public DataSource getShardDataSource(int shard) {
+        return shard == DIRECTORY ? directory : shardPools.get(shard - 1);
+    }
+
+    public int getShardCount() {
+        return ring.getShardCount();
+    }
+
+    public int shardFor(Long userId) {
+        return ring.shardFor(userId);
+    }
+
+    public int currentShard() {
+        Integer shard = boundShard.get();
+        if (shard != null) {
+            return shard;
+        }
+        Long userId = CurrentUser.getId();
+        return userId != null ? shardFor(userId) : DIRECTORY;
+    }
+
+    public <T> T callOnShard(int shard, Supplier<T> work) {
+        Integer previous = boundShard.get();
+        boundShard.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                boundShard.set(previous);
+            } else {
+                boundShard.remove();
+            }
+        }
+    }
+
+    public void runOnShard(int shard, Runnable work) {
+        callOnShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T callForUser(Long userId, Supplier<T> work) {
+        return callOnShard(shardFor(userId), work);
+    }
+
+    public void runForUser(Long userId, Runnable work) {
+        runOnShard(shardFor(userId), work);
+    }
+
+    public <T> T callOnDirectory(Supplier<T> work) {
+        return callOnShard(DIRECTORY, work);
+    }
+
+    public void runOnDirectory(Runnable work) {
+        runOnShard(DIRECTORY, work);
+    }
+
+    // Maintenance jobs that are not about one user run once per shard
+    public void runOnEachShard(Runnable work) {
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            runOnShard(shard, work);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        shardPools.forEach(HikariDataSource::close);
+    }
+}
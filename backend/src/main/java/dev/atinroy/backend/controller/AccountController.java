@@ -0,0 +1,35 @@
+package dev.atinroy.backend.controller;
+
+import dev.atinroy.backend.dto.account.AccountDeletionResponse;
+import dev.atinroy.backend.security.UserDetailsImpl;
+import dev.atinroy.backend.service.AccountDeletionService;
+import dev.atinroy.backend.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/account")
+@RequiredArgsConstructor
+public class AccountController {
+
+    private final UserService userService;
+    private final AccountDeletionService accountDeletionService;
+
+    // Accepted: the account is disabled, its data deleted in the background
+    @DeleteMapping
+    public ResponseEntity<AccountDeletionResponse> deleteAccount(
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        AccountDeletionResponse deletion = userService.deleteUser(userDetails.getId());
+        return ResponseEntity.accepted().body(deletion);
+    }
+
+    @GetMapping("/deletions/{token}")
+    public ResponseEntity<AccountDeletionResponse> getDeletion(@PathVariable UUID token) {
+        AccountDeletionResponse deletion = accountDeletionService.getDeletion(token);
+        return ResponseEntity.ok(deletion);
+    }
+}
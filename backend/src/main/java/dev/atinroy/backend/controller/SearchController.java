@@ -0,0 +1,28 @@
+package dev.atinroy.backend.controller;
+
+import dev.atinroy.backend.dto.common.CursorPage;
+import dev.atinroy.backend.dto.search.SearchHitResponse;
+import dev.atinroy.backend.security.UserDetailsImpl;
+import dev.atinroy.backend.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @GetMapping
+    public ResponseEntity<CursorPage<SearchHitResponse>> search(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<SearchHitResponse> page = searchService.search(userDetails.getId(), q, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+}
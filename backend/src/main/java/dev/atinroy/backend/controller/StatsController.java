@@ -53,13 +53,25 @@ public class StatsController {
     @GetMapping("/tags")
     public ResponseEntity<java.util.List<TagTimeBreakdown>> getTagBreakdown(
             @AuthenticationPrincipal UserDetailsImpl userDetails,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
         java.util.List<TagTimeBreakdown> breakdown;
         if (date != null) {
             breakdown = statsService.getTagBreakdownForDate(userDetails.getId(), date);
+        } else if (startDate != null && endDate != null) {
+            breakdown = statsService.getTagBreakdownForPeriod(userDetails.getId(), startDate, endDate);
         } else {
             breakdown = statsService.getTagBreakdown(userDetails.getId());
         }
         return ResponseEntity.ok(breakdown);
     }
+
+    @GetMapping("/query")
+    public ResponseEntity<StatsQueryResponse> queryStats(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @ModelAttribute StatsQuery query) {
+        StatsQueryResponse stats = statsService.queryStats(userDetails.getId(), query);
+        return ResponseEntity.ok(stats);
+    }
 }
@@ -0,0 +1,28 @@
+package dev.atinroy.backend.controller;
+
+import dev.atinroy.backend.dto.sync.SyncResponse;
+import dev.atinroy.backend.security.UserDetailsImpl;
+import dev.atinroy.backend.service.SyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final SyncService syncService;
+
+    @GetMapping
+    public ResponseEntity<SyncResponse> sync(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since) {
+        SyncResponse changes = syncService.getChanges(userDetails.getId(), since);
+        return ResponseEntity.ok(changes);
+    }
+}
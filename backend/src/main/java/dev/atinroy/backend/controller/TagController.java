@@ -1,5 +1,7 @@
 package dev.atinroy.backend.controller;
 
+import dev.atinroy.backend.dto.common.CursorPage;
+import dev.atinroy.backend.dto.tag.TagMergeResponse;
 import dev.atinroy.backend.dto.tag.TagRequest;
 import dev.atinroy.backend.dto.tag.TagResponse;
 import dev.atinroy.backend.security.UserDetailsImpl;
@@ -20,6 +22,9 @@ public class TagController {
 
     private final TagService tagService;
 
+    // Deprecated, unbounded and kept only for clients that predate
+    // GET /api/tags/page, which new clients should use
+    @Deprecated
     @GetMapping
     public ResponseEntity<List<TagResponse>> getAllTags(
             @AuthenticationPrincipal UserDetailsImpl userDetails) {
@@ -27,6 +32,15 @@ public class TagController {
         return ResponseEntity.ok(tags);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<TagResponse>> getTagPage(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<TagResponse> page = tagService.getTagPage(userDetails.getId(), cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TagResponse> getTagById(
             @PathVariable Long id,
@@ -52,6 +66,15 @@ public class TagController {
         return ResponseEntity.ok(tag);
     }
 
+    @PostMapping("/{id}/merge-into/{targetId}")
+    public ResponseEntity<TagMergeResponse> mergeTag(
+            @PathVariable Long id,
+            @PathVariable Long targetId,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        TagMergeResponse merge = tagService.mergeTag(id, targetId, userDetails.getId());
+        return ResponseEntity.ok(merge);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTag(
             @PathVariable Long id,
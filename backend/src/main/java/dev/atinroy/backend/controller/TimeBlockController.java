@@ -1,21 +1,21 @@
 package dev.atinroy.backend.controller;
 
+import dev.atinroy.backend.dto.common.CursorPage;
 import dev.atinroy.backend.dto.timeblock.EndTimeBlockRequest;
+import dev.atinroy.backend.dto.timeblock.ImportTimeBlocksRequest;
+import dev.atinroy.backend.dto.timeblock.ImportTimeBlocksResponse;
 import dev.atinroy.backend.dto.timeblock.StartTimeBlockRequest;
+import dev.atinroy.backend.dto.timeblock.TimeBlockFilter;
 import dev.atinroy.backend.dto.timeblock.TimeBlockResponse;
-import dev.atinroy.backend.entity.BlockPurpose;
 import dev.atinroy.backend.security.UserDetailsImpl;
 import dev.atinroy.backend.service.TimeBlockService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,35 +34,27 @@ public class TimeBlockController {
                 .orElseGet(() -> ResponseEntity.noContent().build());
     }
 
+    // Deprecated for listing, kept only for clients that predate
+    // GET /api/timeblocks/page. Without a limit it returns every block the filter
+    // matches; a limit is capped at the page size.
+    @Deprecated
     @GetMapping
     public ResponseEntity<List<TimeBlockResponse>> getTimeBlocks(
             @AuthenticationPrincipal UserDetailsImpl userDetails,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-            @RequestParam(required = false) BlockPurpose purpose,
-            @RequestParam(required = false) Long tagId,
-            @RequestParam(required = false) Long todoId) {
-
-        List<TimeBlockResponse> timeBlocks;
-
-        if (date != null) {
-            timeBlocks = timeBlockService.getTimeBlocksByDate(userDetails.getId(), date);
-        } else if (startDate != null && endDate != null) {
-            timeBlocks = timeBlockService.getTimeBlocksByDateRange(userDetails.getId(), startDate, endDate);
-        } else if (purpose != null) {
-            timeBlocks = timeBlockService.getTimeBlocksByPurpose(userDetails.getId(), purpose);
-        } else if (tagId != null) {
-            timeBlocks = timeBlockService.getTimeBlocksByTag(userDetails.getId(), tagId);
-        } else if (todoId != null) {
-            timeBlocks = timeBlockService.getTimeBlocksByTodo(userDetails.getId(), todoId);
-        } else {
-            timeBlocks = timeBlockService.getAllTimeBlocksByUser(userDetails.getId());
-        }
-
+            @ModelAttribute TimeBlockFilter filter) {
+        List<TimeBlockResponse> timeBlocks = timeBlockService.searchTimeBlocks(userDetails.getId(), filter);
         return ResponseEntity.ok(timeBlocks);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<TimeBlockResponse>> getTimeBlockPage(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<TimeBlockResponse> page = timeBlockService.getTimeBlockPage(userDetails.getId(), cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TimeBlockResponse> getTimeBlockById(
             @PathVariable Long id,
@@ -79,6 +71,14 @@ public class TimeBlockController {
         return new ResponseEntity<>(timeBlock, HttpStatus.CREATED);
     }
 
+    @PostMapping("/import")
+    public ResponseEntity<ImportTimeBlocksResponse> importTimeBlocks(
+            @Valid @RequestBody ImportTimeBlocksRequest request,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        ImportTimeBlocksResponse response = timeBlockService.importTimeBlocks(request, userDetails.getId());
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{id}/end")
     public ResponseEntity<TimeBlockResponse> endTimeBlock(
             @PathVariable Long id,
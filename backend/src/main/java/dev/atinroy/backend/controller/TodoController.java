@@ -1,5 +1,9 @@
 package dev.atinroy.backend.controller;
 
+import dev.atinroy.backend.dto.common.CursorPage;
+import dev.atinroy.backend.dto.todo.BulkTodoRequest;
+import dev.atinroy.backend.dto.todo.BulkTodoResponse;
+import dev.atinroy.backend.dto.todo.MoveTodoRequest;
 import dev.atinroy.backend.dto.todo.TodoRequest;
 import dev.atinroy.backend.dto.todo.TodoResponse;
 import dev.atinroy.backend.security.UserDetailsImpl;
@@ -20,6 +24,9 @@ public class TodoController {
 
     private final TodoService todoService;
 
+    // Deprecated, returns every matching todo in one response and is kept only for
+    // clients that predate GET /api/todos/page. New clients page through that one.
+    @Deprecated
     @GetMapping
     public ResponseEntity<List<TodoResponse>> getAllTodos(
             @AuthenticationPrincipal UserDetailsImpl userDetails,
@@ -39,6 +46,15 @@ public class TodoController {
         return ResponseEntity.ok(todos);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<TodoResponse>> getTodoPage(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<TodoResponse> page = todoService.getTodoPage(userDetails.getId(), cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/priority")
     public ResponseEntity<List<TodoResponse>> getIncompleteTodosByPriority(
             @AuthenticationPrincipal UserDetailsImpl userDetails) {
@@ -46,6 +62,13 @@ public class TodoController {
         return ResponseEntity.ok(todos);
     }
 
+    @GetMapping("/ordered")
+    public ResponseEntity<List<TodoResponse>> getIncompleteTodosInManualOrder(
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        List<TodoResponse> todos = todoService.getIncompleteTodosInManualOrder(userDetails.getId());
+        return ResponseEntity.ok(todos);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TodoResponse> getTodoById(
             @PathVariable Long id,
@@ -62,6 +85,14 @@ public class TodoController {
         return new ResponseEntity<>(todo, HttpStatus.CREATED);
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkTodoResponse> applyBulkOperation(
+            @Valid @RequestBody BulkTodoRequest request,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        BulkTodoResponse result = todoService.applyBulkOperation(request, userDetails.getId());
+        return ResponseEntity.ok(result);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<TodoResponse> updateTodo(
             @PathVariable Long id,
@@ -79,6 +110,15 @@ public class TodoController {
         return ResponseEntity.ok(todo);
     }
 
+    @PatchMapping("/{id}/move")
+    public ResponseEntity<TodoResponse> moveTodo(
+            @PathVariable Long id,
+            @RequestBody MoveTodoRequest request,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        TodoResponse todo = todoService.moveTodo(id, request, userDetails.getId());
+        return ResponseEntity.ok(todo);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTodo(
             @PathVariable Long id,
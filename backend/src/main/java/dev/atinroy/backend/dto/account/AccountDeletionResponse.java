@@ -0,0 +1,23 @@
+package dev.atinroy.backend.dto.account;
+
+import dev.atinroy.backend.entity.AccountDeletionStatus;
+import dev.atinroy.backend.entity.AccountDeletionStep;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountDeletionResponse {
+
+    private UUID token;
+    private AccountDeletionStatus status;
+    private AccountDeletionStep step;
+    private Long deletedRows;
+    private Instant requestedAt;
+    private Instant completedAt;
+}
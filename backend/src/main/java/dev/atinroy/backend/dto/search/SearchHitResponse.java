@@ -0,0 +1,27 @@
+package dev.atinroy.backend.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHitResponse {
+
+    private SearchHitType type;
+    private Long id;
+
+    // Todo title or tag label, null for time blocks
+    private String title;
+
+    // Todo description or time block notes, null for tags
+    private String text;
+
+    // Time blocks only
+    private LocalDateTime startedAt;
+
+    private Float rank;
+}
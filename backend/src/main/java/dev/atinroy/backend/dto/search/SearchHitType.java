@@ -0,0 +1,7 @@
+package dev.atinroy.backend.dto.search;
+
+public enum SearchHitType {
+    TODO,
+    TIME_BLOCK,
+    TAG
+}
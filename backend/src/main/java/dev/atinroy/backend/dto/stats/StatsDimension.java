@@ -0,0 +1,5 @@
+package dev.atinroy.backend.dto.stats;
+
+public enum StatsDimension {
+    TAG, TODO, PURPOSE, DAY, WEEK, MONTH, HOUR
+}
@@ -0,0 +1,20 @@
+package dev.atinroy.backend.dto.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsQueryResponse {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<StatsDimension> groupBy;
+    private List<StatsQueryRow> rows;
+    private StatsQueryRow totals;
+}
@@ -0,0 +1,31 @@
+package dev.atinroy.backend.dto.stats;
+
+import dev.atinroy.backend.entity.BlockPurpose;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsQueryRow {
+
+    // Dimension keys, only the requested ones are filled in
+    private Long tagId;
+    private String tagLabel;
+    private String tagHexColor;
+    private Long todoId;
+    private String todoTitle;
+    private BlockPurpose purpose;
+    private LocalDate periodStart;
+    private Integer hourOfDay;
+
+    private Long focusTimeSeconds;
+    private Long breakTimeSeconds;
+    private Long focusSessions;
+    private Long timerBlocks;
+    private Long completedTimers;
+    private Double timerCompletionRate;
+}
@@ -0,0 +1,34 @@
+package dev.atinroy.backend.dto.sync;
+
+import dev.atinroy.backend.dto.settings.UserSettingsResponse;
+import dev.atinroy.backend.dto.tag.TagResponse;
+import dev.atinroy.backend.dto.timeblock.TimeBlockResponse;
+import dev.atinroy.backend.dto.todo.TodoResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponse {
+
+    // Pass back as "since" on the next sync
+    private Instant watermark;
+
+    // Replace local state instead of merging, tombstones older than the purge
+    // retention are gone so no deletions are listed
+    private boolean reset;
+
+    private List<TodoResponse> todos;
+    private List<TagResponse> tags;
+    private List<TimeBlockResponse> timeBlocks;
+    private UserSettingsResponse settings;
+
+    private List<Long> deletedTodoIds;
+    private List<Long> deletedTagIds;
+    private List<Long> deletedTimeBlockIds;
+}
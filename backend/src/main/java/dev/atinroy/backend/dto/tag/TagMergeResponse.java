@@ -0,0 +1,15 @@
+package dev.atinroy.backend.dto.tag;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TagMergeResponse {
+
+    private TagResponse tag;
+    private Integer movedTodos;
+    private Integer movedTimeBlocks;
+}
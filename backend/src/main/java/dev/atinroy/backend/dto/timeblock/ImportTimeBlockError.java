@@ -0,0 +1,14 @@
+package dev.atinroy.backend.dto.timeblock;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportTimeBlockError {
+
+    private Integer index;
+    private String message;
+}
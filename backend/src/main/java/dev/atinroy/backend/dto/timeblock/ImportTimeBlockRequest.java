@@ -0,0 +1,36 @@
+package dev.atinroy.backend.dto.timeblock;
+
+import dev.atinroy.backend.entity.BlockMode;
+import dev.atinroy.backend.entity.BlockPurpose;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Field limits are validated with the request, a row breaking one fails it with
+// a 400 naming the row. Everything else is checked row by row during the import,
+// so a bad row is reported instead of rejecting the whole batch
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportTimeBlockRequest {
+
+    private BlockPurpose purpose;
+
+    private BlockMode mode;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime endedAt;
+
+    private Long plannedDurationSeconds;
+
+    private Long todoId;
+
+    private Long tagId;
+
+    @Size(max = 500, message = "Notes must not exceed 500 characters")
+    private String notes;
+}
@@ -0,0 +1,20 @@
+package dev.atinroy.backend.dto.timeblock;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportTimeBlocksRequest {
+
+    @NotEmpty(message = "At least one time block is required")
+    @Size(max = 5000, message = "At most 5000 time blocks can be imported at once")
+    private List<@Valid ImportTimeBlockRequest> blocks;
+}
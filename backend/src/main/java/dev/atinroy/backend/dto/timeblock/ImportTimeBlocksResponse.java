@@ -0,0 +1,17 @@
+package dev.atinroy.backend.dto.timeblock;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportTimeBlocksResponse {
+
+    private Integer received;
+    private Integer imported;
+    private List<ImportTimeBlockError> errors;
+}
@@ -0,0 +1,36 @@
+package dev.atinroy.backend.dto.timeblock;
+
+import dev.atinroy.backend.entity.BlockPurpose;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeBlockFilter {
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate date;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime startDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime endDate;
+
+    private BlockPurpose purpose;
+
+    private Long tagId;
+
+    private Long todoId;
+
+    private Sort.Direction sort = Sort.Direction.ASC;
+
+    private Integer limit;
+}
@@ -0,0 +1,5 @@
+package dev.atinroy.backend.dto.todo;
+
+public enum BulkTodoOperation {
+    COMPLETE, UNCOMPLETE, DELETE, SET_TAG, SET_PRIORITY
+}
@@ -0,0 +1,29 @@
+package dev.atinroy.backend.dto.todo;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTodoRequest {
+
+    @NotEmpty(message = "At least one todo id is required")
+    @Size(max = 1000, message = "At most 1000 todos can be changed at once")
+    private List<@NotNull Long> ids;
+
+    @NotNull(message = "Operation is required")
+    private BulkTodoOperation operation;
+
+    // SET_TAG, null removes the tag
+    private Long tagId;
+
+    // SET_PRIORITY, null clears the priority
+    private Integer priority;
+}
@@ -0,0 +1,14 @@
+package dev.atinroy.backend.dto.todo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTodoResponse {
+
+    private BulkTodoOperation operation;
+    private Integer affected;
+}
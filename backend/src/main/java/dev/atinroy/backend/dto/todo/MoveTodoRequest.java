@@ -0,0 +1,14 @@
+package dev.atinroy.backend.dto.todo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoveTodoRequest {
+
+    // The todo to place it right after in the incomplete list, null for the top
+    private Long afterId;
+}
@@ -18,6 +18,7 @@ public class TodoResponse {
     private TagResponse tag;
     private Boolean completed;
     private Integer priority;
+    private String sortKey;
     private Instant createdAt;
     private Instant updatedAt;
 }
@@ -0,0 +1,47 @@
+package dev.atinroy.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Progress of one account deletion, kept in the user directory. Holds the user id
+// without a foreign key, since it outlives the account it removes.
+@Entity
+@Table(name = "account_deletions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountDeletion extends BaseEntity {
+
+    // Handed to the client for status checks once its login stops working
+    @Column(nullable = false, unique = true)
+    private UUID token;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private AccountDeletionStatus status;
+
+    // The step to resume from
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private AccountDeletionStep step;
+
+    @Column(nullable = false)
+    private Long deletedRows = 0L;
+
+    // A job working on this deletion owns it until then
+    @Column
+    private Instant leaseUntil;
+
+    @Column
+    private Instant completedAt;
+}
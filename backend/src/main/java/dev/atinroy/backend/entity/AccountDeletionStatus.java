@@ -0,0 +1,5 @@
+package dev.atinroy.backend.entity;
+
+public enum AccountDeletionStatus {
+    PENDING, IN_PROGRESS, COMPLETED
+}
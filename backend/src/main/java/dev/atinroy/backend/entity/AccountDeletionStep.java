@@ -0,0 +1,29 @@
+package dev.atinroy.backend.entity;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+// The tables an account deletion clears, in foreign key order: every row is gone
+// before the rows it references
+@Getter
+@RequiredArgsConstructor
+public enum AccountDeletionStep {
+    TIMERS("timers"),
+    TIME_BLOCKS("time_blocks"),
+    ARCHIVED_TIME_BLOCKS("time_blocks_archive"),
+    TODOS("todos"),
+    TAGS("tags"),
+    USER_SETTINGS("user_settings"),
+    USER_STREAKS("user_streaks"),
+    USER_DAILY_STATS("user_daily_stats"),
+    USER_LIFETIME_STATS("user_lifetime_stats"),
+    USER("users");
+
+    private final String table;
+
+    // Null after the last step
+    public AccountDeletionStep next() {
+        AccountDeletionStep[] steps = values();
+        return ordinal() + 1 < steps.length ? steps[ordinal() + 1] : null;
+    }
+}
@@ -0,0 +1,71 @@
+package dev.atinroy.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+// Ended time blocks moved out of the hot table by TimeBlockArchiveService. Rows
+// are written with native SQL only, see V4__time_blocks_archive, and only tag
+// merges change them afterwards, see V9__time_blocks_archive_updated_at.
+@Entity
+@Immutable
+@Table(name = "time_blocks_archive", indexes = {
+        @Index(name = "idx_time_blocks_archive_user_started_at", columnList = "user_id, started_at"),
+        @Index(name = "idx_time_blocks_archive_user_updated_at", columnList = "user_id, updated_at"),
+        @Index(name = "idx_time_blocks_archive_todo_id", columnList = "todo_id"),
+        @Index(name = "idx_time_blocks_archive_tag_id", columnList = "tag_id")
+})
+@Getter
+@NoArgsConstructor
+public class ArchivedTimeBlock {
+
+    // Same id the block had in time_blocks
+    @Id
+    private Long id;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false, updatable = false)
+    private Instant archivedAt;
+
+    @Column(nullable = false, updatable = false)
+    private Instant updatedAt;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "todo_id")
+    private Todo todo;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tag_id")
+    private Tag tag;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BlockPurpose purpose;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BlockMode mode;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime endedAt;
+
+    private Long plannedDurationSeconds;
+    private Long actualDurationSeconds;
+    private Boolean completed;
+
+    @Column(length = 500)
+    private String notes;
+}
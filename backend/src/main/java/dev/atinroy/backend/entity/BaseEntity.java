@@ -29,6 +29,9 @@ public abstract class BaseEntity {
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
 
+    // Delta sync reads changes by this column. Bulk updates skip @UpdateTimestamp,
+    // so every one of them sets it by hand, from the database's now(), the clock
+    // the @SQLDelete tombstones use.
     @UpdateTimestamp
     @Column(nullable = false)
     private Instant updatedAt;
@@ -2,13 +2,22 @@ package dev.atinroy.backend.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLRestriction;
 
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
-@Table(name = "tags")
+@SQLDelete(sql = "UPDATE tags SET deleted_at = now(), updated_at = now() WHERE id = ?")
+@SQLRestriction("deleted_at IS NULL")
+// Read indexes are partial on live rows, see TimeBlock
+@Table(name = "tags", indexes = {
+        @Index(name = "idx_tags_user_label", columnList = "user_id, tag_label", options = "WHERE deleted_at IS NULL"),
+        @Index(name = "idx_tags_user_updated_at", columnList = "user_id, updated_at"),
+        @Index(name = "idx_tags_deleted_at", columnList = "deleted_at", options = "WHERE deleted_at IS NOT NULL")
+})
 public class Tag extends BaseEntity {
     @Column(name = "tag_label", nullable = false, length = 50)
     private String label;
@@ -16,7 +25,7 @@ public class Tag extends BaseEntity {
     @Column(name="tag_hex_color", nullable = false, length = 6)
     private String hexColor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 }
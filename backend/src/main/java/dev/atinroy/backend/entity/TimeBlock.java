@@ -4,22 +4,43 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 
 @Entity
+@NamedEntityGraph(name = TimeBlock.WITH_TODO_AND_TAG, attributeNodes = {
+        @NamedAttributeNode("tag"),
+        @NamedAttributeNode(value = "todo", subgraph = "todo")
+}, subgraphs = @NamedSubgraph(name = "todo", attributeNodes = @NamedAttributeNode("tag")))
+@SQLDelete(sql = "UPDATE time_blocks SET deleted_at = now(), updated_at = now() WHERE id = ?")
+@SQLRestriction("deleted_at IS NULL")
+// The schema is owned by db/migration, these mirror it. The table is range
+// partitioned by started_at month with a primary key of (id, started_at), so
+// queries that bound started_at only touch the months they cover. Read indexes
+// are partial on live rows. The updated_at and foreign key indexes stay full
+// because sync and the tombstone purge look at deleted rows too.
 @Table(name = "time_blocks", indexes = {
-        @Index(name = "idx_user_purpose", columnList = "user_id, purpose"),
-        @Index(name = "idx_user_started_at", columnList = "user_id, started_at"),
-        @Index(name = "idx_todo_id", columnList = "todo_id"),
-        @Index(name = "idx_tag_id", columnList = "tag_id")
+        @Index(name = "idx_time_blocks_user_started_at", columnList = "user_id, started_at", options = "WHERE deleted_at IS NULL"),
+        @Index(name = "idx_time_blocks_user_purpose_started_at", columnList = "user_id, purpose, started_at",
+                options = "INCLUDE (actual_duration_seconds, tag_id, ended_at) WHERE deleted_at IS NULL"),
+        @Index(name = "idx_time_blocks_user_active", columnList = "user_id",
+                options = "WHERE ended_at IS NULL AND deleted_at IS NULL"),
+        @Index(name = "idx_time_blocks_user_updated_at", columnList = "user_id, updated_at"),
+        @Index(name = "idx_time_blocks_deleted_at", columnList = "deleted_at", options = "WHERE deleted_at IS NOT NULL"),
+        @Index(name = "idx_time_blocks_todo_id", columnList = "todo_id"),
+        @Index(name = "idx_time_blocks_tag_id", columnList = "tag_id")
 })
 @Getter
 @Setter
 @NoArgsConstructor
 public class TimeBlock extends BaseEntity {
 
+    // Everything TimeBlockMapper reads, loaded in the same select as the block
+    public static final String WITH_TODO_AND_TAG = "TimeBlock.withTodoAndTag";
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -52,9 +73,10 @@ public class TimeBlock extends BaseEntity {
     @Column(length = 500)
     private String notes;
 
+    // Also called by imports to check rows before they are batched
     @PrePersist
     @PreUpdate
-    private void validateAndCalculate() {
+    public void validateAndCalculate() {
         validateTemporalConstraints();
         validateModeConstraints();
         validateTagTodoRelationship();
@@ -8,7 +8,9 @@ import lombok.*;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "timers")
+@Table(name = "timers", indexes = {
+        @Index(name = "idx_timers_user_id", columnList = "user_id")
+})
 public class Timer extends BaseEntity {
 
     @Column(nullable = false)
@@ -5,11 +5,21 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLRestriction;
 
 @Entity
+@SQLDelete(sql = "UPDATE todos SET deleted_at = now(), updated_at = now() WHERE id = ?")
+@SQLRestriction("deleted_at IS NULL")
+// Read indexes are partial on live rows, see TimeBlock
 @Table(name = "todos", indexes = {
-        @Index(name = "idx_user_id", columnList = "user_id"),
-        @Index(name = "idx_tag_id", columnList = "tag_id")
+        @Index(name = "idx_todos_user_id", columnList = "user_id", options = "WHERE deleted_at IS NULL"),
+        @Index(name = "idx_todos_user_created_at", columnList = "user_id, created_at", options = "WHERE deleted_at IS NULL"),
+        @Index(name = "idx_todos_user_updated_at", columnList = "user_id, updated_at"),
+        @Index(name = "idx_todos_deleted_at", columnList = "deleted_at", options = "WHERE deleted_at IS NOT NULL"),
+        @Index(name = "idx_todos_tag_id", columnList = "tag_id"),
+        @Index(name = "idx_todos_user_sort_key", columnList = "user_id, sort_key, id",
+                options = "WHERE deleted_at IS NULL AND completed = false")
 })
 @Getter
 @Setter
@@ -36,4 +46,8 @@ public class Todo extends BaseEntity {
 
     @Column
     private Integer priority;
+
+    // Manual order, see RankKeys
+    @Column(nullable = false, length = 255)
+    private String sortKey;
 }
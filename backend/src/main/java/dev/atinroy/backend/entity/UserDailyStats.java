@@ -0,0 +1,46 @@
+package dev.atinroy.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "user_daily_stats", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_user_daily_stats_user_date", columnNames = { "user_id", "activity_date" })
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDailyStats extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private LocalDate activityDate;
+
+    @Column(nullable = false)
+    private Long focusSeconds = 0L;
+
+    @Column(nullable = false)
+    private Long breakSeconds = 0L;
+
+    @Column(nullable = false)
+    private Long sessionCount = 0L;
+
+    @Column(nullable = false)
+    private Long completedTimers = 0L;
+
+    public void add(long focusSeconds, long breakSeconds, long sessionCount, long completedTimers) {
+        this.focusSeconds += focusSeconds;
+        this.breakSeconds += breakSeconds;
+        this.sessionCount += sessionCount;
+        this.completedTimers += completedTimers;
+    }
+}
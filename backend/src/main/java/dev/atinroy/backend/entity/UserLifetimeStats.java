@@ -0,0 +1,38 @@
+package dev.atinroy.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "user_lifetime_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserLifetimeStats extends BaseEntity {
+
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false, unique = true)
+    private User user;
+
+    @Column(nullable = false)
+    private Long totalFocusSeconds = 0L;
+
+    @Column(nullable = false)
+    private Long sessionCount = 0L;
+
+    @Column(nullable = false)
+    private Long activeDays = 0L;
+
+    @Column
+    private LocalDate lastActiveDate;
+
+    public Double getAverageSessionDurationSeconds() {
+        return sessionCount > 0 ? (double) totalFocusSeconds / sessionCount : 0.0;
+    }
+}
@@ -7,9 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "user_settings", indexes = {
-        @Index(name = "idx_user_settings_user_id", columnList = "user_id")
-})
+@Table(name = "user_settings")
 @Getter
 @Setter
 @NoArgsConstructor
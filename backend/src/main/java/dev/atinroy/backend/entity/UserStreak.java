@@ -7,11 +7,10 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @Entity
-@Table(name = "user_streaks", indexes = {
-        @Index(name = "idx_user_streak_user_id", columnList = "user_id")
-})
+@Table(name = "user_streaks")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -64,6 +63,20 @@ public class UserStreak extends BaseEntity {
         }
     }
 
+    // Replays a user's whole activity history from scratch, for days that arrive
+    // out of order. The best streak never drops below what was already recorded.
+    public void rebuildStreak(List<LocalDate> activityDates) {
+        int previousBest = bestStreak;
+        currentStreak = 0;
+        bestStreak = 0;
+        lastActivityDate = null;
+        streakStartDate = null;
+        activityDates.stream()
+                .sorted()
+                .forEach(this::updateStreak);
+        bestStreak = Math.max(bestStreak, previousBest);
+    }
+
     public boolean isStreakActive() {
         if (lastActivityDate == null) {
             return false;
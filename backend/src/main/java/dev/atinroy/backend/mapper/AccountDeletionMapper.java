@@ -0,0 +1,13 @@
+package dev.atinroy.backend.mapper;
+
+import dev.atinroy.backend.dto.account.AccountDeletionResponse;
+import dev.atinroy.backend.entity.AccountDeletion;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MapperConfiguration.class)
+public interface AccountDeletionMapper {
+
+    @Mapping(target = "requestedAt", source = "createdAt")
+    AccountDeletionResponse toResponse(AccountDeletion accountDeletion);
+}
@@ -0,0 +1,11 @@
+package dev.atinroy.backend.mapper;
+
+import dev.atinroy.backend.dto.search.SearchHitResponse;
+import dev.atinroy.backend.repository.projection.SearchHitRow;
+import org.mapstruct.Mapper;
+
+@Mapper(config = MapperConfiguration.class)
+public interface SearchMapper {
+
+    SearchHitResponse toResponse(SearchHitRow row);
+}
@@ -3,6 +3,7 @@ package dev.atinroy.backend.mapper;
 import dev.atinroy.backend.dto.tag.TagRequest;
 import dev.atinroy.backend.dto.tag.TagResponse;
 import dev.atinroy.backend.entity.Tag;
+import dev.atinroy.backend.repository.projection.TagRow;
 import org.mapstruct.*;
 
 @Mapper(config = MapperConfiguration.class)
@@ -10,6 +11,8 @@ public interface TagMapper {
 
     TagResponse toResponse(Tag tag);
 
+    TagResponse toResponse(TagRow row);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "user", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
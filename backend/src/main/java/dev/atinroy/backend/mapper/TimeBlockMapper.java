@@ -2,10 +2,17 @@ package dev.atinroy.backend.mapper;
 
 import dev.atinroy.backend.dto.timeblock.TimeBlockResponse;
 import dev.atinroy.backend.entity.TimeBlock;
+import dev.atinroy.backend.repository.projection.TimeBlockRow;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(config = MapperConfiguration.class, uses = { TodoMapper.class, TagMapper.class })
 public interface TimeBlockMapper {
 
     TimeBlockResponse toResponse(TimeBlock timeBlock);
+
+    @Mapping(target = "active", expression = "java(row.endedAt() == null)")
+    @Mapping(target = "currentDurationSeconds", expression = "java(row.currentDurationSeconds())")
+    @Mapping(target = "remainingSeconds", expression = "java(row.remainingSeconds())")
+    TimeBlockResponse toResponse(TimeBlockRow row);
 }
@@ -3,6 +3,7 @@ package dev.atinroy.backend.mapper;
 import dev.atinroy.backend.dto.todo.TodoRequest;
 import dev.atinroy.backend.dto.todo.TodoResponse;
 import dev.atinroy.backend.entity.Todo;
+import dev.atinroy.backend.repository.projection.TodoRow;
 import org.mapstruct.*;
 
 @Mapper(config = MapperConfiguration.class, uses = { TagMapper.class })
@@ -10,10 +11,13 @@ public interface TodoMapper {
 
     TodoResponse toResponse(Todo todo);
 
+    TodoResponse toResponse(TodoRow row);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "user", ignore = true)
     @Mapping(target = "tag", ignore = true)
     @Mapping(target = "completed", ignore = true)
+    @Mapping(target = "sortKey", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "deletedAt", ignore = true)
@@ -23,6 +27,7 @@ public interface TodoMapper {
     @Mapping(target = "user", ignore = true)
     @Mapping(target = "tag", ignore = true)
     @Mapping(target = "completed", ignore = true)
+    @Mapping(target = "sortKey", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "deletedAt", ignore = true)
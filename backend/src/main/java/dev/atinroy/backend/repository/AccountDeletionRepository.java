@@ -0,0 +1,38 @@
+package dev.atinroy.backend.repository;
+
+import dev.atinroy.backend.entity.AccountDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Open deletions are served by idx_account_deletions_open_user_id
+@Repository
+public interface AccountDeletionRepository extends JpaRepository<AccountDeletion, Long> {
+
+    Optional<AccountDeletion> findByToken(UUID token);
+
+    // Read-write, so it sees a deletion requested moments ago on the primary
+    @Transactional
+    @Query(value = "SELECT * FROM account_deletions WHERE user_id = :userId AND status <> 'COMPLETED'",
+            nativeQuery = true)
+    Optional<AccountDeletion> findOpenByUserId(@Param("userId") Long userId);
+
+    @Query(value = "SELECT id FROM account_deletions WHERE status <> 'COMPLETED' ORDER BY id", nativeQuery = true)
+    List<Long> findOpenIds();
+
+    // Takes the deletion unless another job holds an unexpired lease on it
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE account_deletions SET status = 'IN_PROGRESS', lease_until = :leaseUntil, updated_at = now() "
+            + "WHERE id = :id AND status <> 'COMPLETED' AND (lease_until IS NULL OR lease_until < now())",
+            nativeQuery = true)
+    int claim(@Param("id") Long id, @Param("leaseUntil") Instant leaseUntil);
+}
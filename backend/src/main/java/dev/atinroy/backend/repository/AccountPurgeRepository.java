@@ -0,0 +1,25 @@
+package dev.atinroy.backend.repository;
+
+import dev.atinroy.backend.entity.AccountDeletionStep;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Bulk deletes for account deletion. Each statement removes one bounded chunk of
+// a user's rows, tombstones included, and commits on its own, so no deletion
+// holds locks or a persistence context for long.
+@Repository
+@RequiredArgsConstructor
+public class AccountPurgeRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int deleteChunk(AccountDeletionStep step, Long userId, int limit) {
+        if (step == AccountDeletionStep.USER) {
+            return jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        }
+        String table = step.getTable();
+        return jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (SELECT id FROM " + table
+                + " WHERE user_id = ? LIMIT ?)", userId, limit);
+    }
+}
@@ -0,0 +1,105 @@
+package dev.atinroy.backend.repository;
+
+import dev.atinroy.backend.dto.stats.TimeBlockSummary;
+import dev.atinroy.backend.entity.ArchivedTimeBlock;
+import dev.atinroy.backend.repository.projection.DailyBlockTotals;
+import dev.atinroy.backend.repository.projection.TagFocusTime;
+import dev.atinroy.backend.repository.projection.TimeBlockRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Read side of the archive mirrors the TimeBlockRepository queries that can reach
+// past the hot window, all served by idx_time_blocks_archive_user_started_at
+@Repository
+public interface ArchivedTimeBlockRepository extends JpaRepository<ArchivedTimeBlock, Long> {
+
+    @Query(TimeBlockRow.SELECT_ARCHIVED + "WHERE tb.id = :id AND tb.user.id = :userId")
+    Optional<TimeBlockRow> findRowByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    // Delta sync, served by idx_time_blocks_archive_user_updated_at. Archived rows
+    // are never deleted one by one, so there are no tombstones to report.
+    @Query(TimeBlockRow.SELECT_ARCHIVED + "WHERE tb.user.id = :userId AND tb.updatedAt > :since")
+    List<TimeBlockRow> findRowsByUserIdUpdatedAfter(@Param("userId") Long userId, @Param("since") Instant since);
+
+    // Keyset pages, newest first, keyed on (startedAt, id) like the hot table
+
+    @Query(TimeBlockRow.SELECT_ARCHIVED + "WHERE tb.user.id = :userId ORDER BY tb.startedAt DESC, tb.id DESC")
+    List<TimeBlockRow> findFirstPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(TimeBlockRow.SELECT_ARCHIVED + "WHERE tb.user.id = :userId "
+            + "AND (tb.startedAt < :startedAt OR (tb.startedAt = :startedAt AND tb.id < :id)) "
+            + "ORDER BY tb.startedAt DESC, tb.id DESC")
+    List<TimeBlockRow> findPageByUserIdAfter(@Param("userId") Long userId, @Param("startedAt") LocalDateTime startedAt,
+            @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT new dev.atinroy.backend.dto.stats.TimeBlockSummary(tb.id, tb.purpose, tb.startedAt, tb.endedAt, "
+            + "tb.actualDurationSeconds, t.label, td.title) "
+            + "FROM ArchivedTimeBlock tb LEFT JOIN tb.tag t LEFT JOIN tb.todo td "
+            + "WHERE tb.user.id = :userId AND tb.startedAt >= :from AND tb.startedAt < :until "
+            + "ORDER BY tb.startedAt ASC")
+    List<TimeBlockSummary> findTimelineByUserIdAndStartedAtInRange(@Param("userId") Long userId,
+            @Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+
+    @Query("SELECT new dev.atinroy.backend.repository.projection.TagFocusTime(t.id, t.label, t.hexColor, SUM(tb.actualDurationSeconds)) "
+            + "FROM ArchivedTimeBlock tb JOIN tb.tag t WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' "
+            + "GROUP BY t.id, t.label, t.hexColor")
+    List<TagFocusTime> getFocusTimeByTag(@Param("userId") Long userId);
+
+    @Query("SELECT new dev.atinroy.backend.repository.projection.TagFocusTime(t.id, t.label, t.hexColor, SUM(tb.actualDurationSeconds)) "
+            + "FROM ArchivedTimeBlock tb JOIN tb.tag t WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' "
+            + "AND tb.startedAt >= :from AND tb.startedAt < :until "
+            + "GROUP BY t.id, t.label, t.hexColor")
+    List<TagFocusTime> getFocusTimeByTagAndDateRange(@Param("userId") Long userId,
+            @Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+
+    @Query("SELECT new dev.atinroy.backend.repository.projection.DailyBlockTotals(CAST(tb.startedAt AS LocalDate), "
+            + "COALESCE(SUM(CASE WHEN tb.purpose = 'FOCUS' THEN tb.actualDurationSeconds ELSE 0L END), 0L), "
+            + "COALESCE(SUM(CASE WHEN tb.purpose <> 'FOCUS' THEN tb.actualDurationSeconds ELSE 0L END), 0L), "
+            + "SUM(CASE WHEN tb.purpose = 'FOCUS' THEN 1L ELSE 0L END), "
+            + "SUM(CASE WHEN tb.completed = true THEN 1L ELSE 0L END)) "
+            + "FROM ArchivedTimeBlock tb WHERE tb.user.id = :userId "
+            + "GROUP BY CAST(tb.startedAt AS LocalDate)")
+    List<DailyBlockTotals> getDailyTotalsByUserId(@Param("userId") Long userId);
+
+    // Tag usage, served by idx_time_blocks_archive_tag_id
+
+    long countByUserIdAndTagId(Long userId, Long tagId);
+
+    boolean existsByUserIdAndTagId(Long userId, Long tagId);
+
+    // Tag merge, the one update archived blocks get
+    @Modifying
+    @Query(value = "UPDATE time_blocks_archive SET tag_id = :targetId, updated_at = now() "
+            + "WHERE user_id = :userId AND tag_id = :sourceId", nativeQuery = true)
+    int reassignTag(@Param("userId") Long userId, @Param("sourceId") Long sourceId,
+            @Param("targetId") Long targetId);
+
+    // Moves one batch of the user's ended, live blocks started before the cutoff
+    // out of time_blocks in a single statement. The range on started_at prunes
+    // the delete to the partitions past the hot window.
+    @Transactional
+    @Modifying
+    @Query(value = "WITH moved AS (DELETE FROM time_blocks WHERE id IN (SELECT id FROM time_blocks "
+            + "WHERE user_id = :userId AND started_at < :cutoff AND ended_at IS NOT NULL AND deleted_at IS NULL "
+            + "LIMIT :limit) AND started_at < :cutoff "
+            + "RETURNING id, created_at, updated_at, user_id, todo_id, tag_id, purpose, mode, started_at, ended_at, "
+            + "planned_duration_seconds, actual_duration_seconds, completed, notes) "
+            + "INSERT INTO time_blocks_archive (id, created_at, archived_at, updated_at, user_id, todo_id, tag_id, "
+            + "purpose, mode, started_at, ended_at, planned_duration_seconds, actual_duration_seconds, completed, notes) "
+            + "SELECT id, created_at, now(), updated_at, user_id, todo_id, tag_id, purpose, mode, started_at, ended_at, "
+            + "planned_duration_seconds, actual_duration_seconds, completed, notes FROM moved", nativeQuery = true)
+    int archiveEndedBefore(@Param("userId") Long userId, @Param("cutoff") LocalDateTime cutoff,
+            @Param("limit") int limit);
+}
@@ -0,0 +1,110 @@
+package dev.atinroy.backend.repository;
+
+import dev.atinroy.backend.repository.projection.TimeBlockExportRow;
+import dev.atinroy.backend.repository.projection.TodoExportRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Exports read through a forward-only JDBC cursor with a bounded fetch size, and
+// hand each row to the consumer as it arrives. The Postgres driver only streams
+// when autocommit is off, so callers must run inside a transaction.
+@Repository
+@RequiredArgsConstructor
+public class ExportRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.export.fetch-size}")
+    private int fetchSize;
+
+    public void streamTimeBlocks(Long userId, LocalDateTime from, LocalDateTime until, boolean includeArchived,
+            Consumer<TimeBlockExportRow> consumer) {
+        StringBuilder sql = new StringBuilder("SELECT tb.id, tb.purpose, tb.mode, tb.started_at, tb.ended_at, "
+                + "tb.planned_duration_seconds, tb.actual_duration_seconds, tb.completed, tb.notes, "
+                + "tb.todo_id, td.title AS todo_title, tb.tag_id, t.tag_label "
+                + (includeArchived ? "FROM time_blocks_with_archive tb" : "FROM time_blocks tb")
+                + " LEFT JOIN todos td ON td.id = tb.todo_id LEFT JOIN tags t ON t.id = tb.tag_id "
+                + "WHERE tb.user_id = ? AND tb.deleted_at IS NULL");
+        List<Object> args = new ArrayList<>(List.of(userId));
+        if (from != null) {
+            sql.append(" AND tb.started_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (until != null) {
+            sql.append(" AND tb.started_at < ?");
+            args.add(Timestamp.valueOf(until));
+        }
+        sql.append(" ORDER BY tb.started_at, tb.id");
+
+        stream(sql.toString(), args, rs -> consumer.accept(new TimeBlockExportRow(
+                rs.getLong("id"),
+                rs.getString("purpose"),
+                rs.getString("mode"),
+                rs.getObject("started_at", LocalDateTime.class),
+                rs.getObject("ended_at", LocalDateTime.class),
+                rs.getObject("planned_duration_seconds", Long.class),
+                rs.getObject("actual_duration_seconds", Long.class),
+                rs.getObject("completed", Boolean.class),
+                rs.getString("notes"),
+                rs.getObject("todo_id", Long.class),
+                rs.getString("todo_title"),
+                rs.getObject("tag_id", Long.class),
+                rs.getString("tag_label"))));
+    }
+
+    public void streamTodos(Long userId, Instant from, Instant until, Consumer<TodoExportRow> consumer) {
+        StringBuilder sql = new StringBuilder("SELECT td.id, td.title, td.description, td.completed, td.priority, "
+                + "td.tag_id, t.tag_label, td.created_at, td.updated_at "
+                + "FROM todos td LEFT JOIN tags t ON t.id = td.tag_id "
+                + "WHERE td.user_id = ? AND td.deleted_at IS NULL");
+        List<Object> args = new ArrayList<>(List.of(userId));
+        if (from != null) {
+            sql.append(" AND td.created_at >= ?");
+            args.add(Timestamp.from(from));
+        }
+        if (until != null) {
+            sql.append(" AND td.created_at < ?");
+            args.add(Timestamp.from(until));
+        }
+        sql.append(" ORDER BY td.created_at, td.id");
+
+        stream(sql.toString(), args, rs -> consumer.accept(new TodoExportRow(
+                rs.getLong("id"),
+                rs.getString("title"),
+                rs.getString("description"),
+                rs.getObject("completed", Boolean.class),
+                rs.getObject("priority", Integer.class),
+                rs.getObject("tag_id", Long.class),
+                rs.getString("tag_label"),
+                toInstant(rs.getTimestamp("created_at")),
+                toInstant(rs.getTimestamp("updated_at")))));
+    }
+
+    private void stream(String sql, List<Object> args, RowCallbackHandler rowCallbackHandler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, rowCallbackHandler);
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+}
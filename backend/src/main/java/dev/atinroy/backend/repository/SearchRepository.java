@@ -0,0 +1,79 @@
+package dev.atinroy.backend.repository;
+
+import dev.atinroy.backend.repository.projection.SearchHitRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Full-text search across todos, tags, time blocks and archived blocks, ranked
+// with ts_rank. Every branch matches through its (user_id, search_vector) GIN
+// index from V7 and V8. GIN keeps a separate entry tree per column, so the scan
+// reads the posting list of the user id and that of each search term, which
+// spans every user, and intersects them. Common terms cost more than the user's
+// own row count suggests, but only the user's matching rows are fetched and
+// ranked. Pages are keyed on (rank, type, id), best match first.
+@Repository
+@RequiredArgsConstructor
+public class SearchRepository {
+
+    private static final String HITS = "SELECT 'TODO' AS type, id, title, description AS text, "
+            + "CAST(NULL AS TIMESTAMP) AS started_at, ts_rank(search_vector, to_tsquery('simple', ?)) AS rank "
+            + "FROM todos WHERE user_id = ? AND deleted_at IS NULL AND search_vector @@ to_tsquery('simple', ?) "
+            + "UNION ALL "
+            + "SELECT 'TIME_BLOCK', id, NULL, notes, started_at, ts_rank(search_vector, to_tsquery('simple', ?)) "
+            + "FROM time_blocks WHERE user_id = ? AND deleted_at IS NULL AND search_vector @@ to_tsquery('simple', ?) "
+            + "UNION ALL "
+            + "SELECT 'TIME_BLOCK', id, NULL, notes, started_at, ts_rank(search_vector, to_tsquery('simple', ?)) "
+            + "FROM time_blocks_archive WHERE user_id = ? AND search_vector @@ to_tsquery('simple', ?) "
+            + "UNION ALL "
+            + "SELECT 'TAG', id, tag_label, NULL, NULL, ts_rank(search_vector, to_tsquery('simple', ?)) "
+            + "FROM tags WHERE user_id = ? AND deleted_at IS NULL AND search_vector @@ to_tsquery('simple', ?)";
+
+    private static final int BRANCHES = 4;
+
+    // Package-private for RepositoryQueryPlanTest
+
+    static final String FIRST_PAGE = "SELECT * FROM (" + HITS + ") hits "
+            + "ORDER BY rank DESC, type DESC, id DESC LIMIT ?";
+
+    static final String PAGE_AFTER = "SELECT * FROM (" + HITS + ") hits WHERE (rank, type, id) < (?, ?, ?) "
+            + "ORDER BY rank DESC, type DESC, id DESC LIMIT ?";
+
+    private static final RowMapper<SearchHitRow> ROW_MAPPER = (rs, rowNum) -> new SearchHitRow(
+            rs.getString("type"),
+            rs.getLong("id"),
+            rs.getString("title"),
+            rs.getString("text"),
+            rs.getObject("started_at", LocalDateTime.class),
+            rs.getFloat("rank"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // `tsQuery` is in to_tsquery syntax, see SearchService
+    public List<SearchHitRow> findFirstPage(Long userId, String tsQuery, Pageable pageable) {
+        List<Object> args = hitArgs(userId, tsQuery);
+        args.add(pageable.getPageSize());
+        return jdbcTemplate.query(FIRST_PAGE, ROW_MAPPER, args.toArray());
+    }
+
+    public List<SearchHitRow> findPageAfter(Long userId, String tsQuery, Float rank, String type, Long id,
+            Pageable pageable) {
+        List<Object> args = hitArgs(userId, tsQuery);
+        args.addAll(List.of(rank, type, id, pageable.getPageSize()));
+        return jdbcTemplate.query(PAGE_AFTER, ROW_MAPPER, args.toArray());
+    }
+
+    private static List<Object> hitArgs(Long userId, String tsQuery) {
+        List<Object> args = new ArrayList<>();
+        for (int branch = 0; branch < BRANCHES; branch++) {
+            args.addAll(List.of(tsQuery, userId, tsQuery));
+        }
+        return args;
+    }
+}
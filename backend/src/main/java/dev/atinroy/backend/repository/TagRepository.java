@@ -1,16 +1,56 @@
 package dev.atinroy.backend.repository;
 
 import dev.atinroy.backend.entity.Tag;
+import dev.atinroy.backend.repository.projection.TagRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TagRepository extends JpaRepository<Tag, Long> {
 
-    List<Tag> findByUserId(Long userId);
+    Optional<Tag> findByIdAndUserId(Long id, Long userId);
+
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    List<Tag> findByIdInAndUserId(Collection<Long> ids, Long userId);
+
+    // Read path: flat rows straight into records, no managed entities
+
+    @Query(TagRow.SELECT + "WHERE t.id = :id AND t.user.id = :userId")
+    Optional<TagRow> findRowByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query(TagRow.SELECT + "WHERE t.user.id = :userId")
+    List<TagRow> findRowsByUserId(@Param("userId") Long userId);
+
+    // Delta sync: changes and tombstones after a watermark, served by idx_tags_user_updated_at
+
+    @Query(TagRow.SELECT + "WHERE t.user.id = :userId AND t.updatedAt > :since")
+    List<TagRow> findRowsByUserIdUpdatedAfter(@Param("userId") Long userId, @Param("since") Instant since);
+
+    @Query(value = "SELECT id FROM tags WHERE user_id = :userId AND updated_at > :since AND deleted_at IS NOT NULL",
+            nativeQuery = true)
+    List<Long> findDeletedIdsByUserIdUpdatedAfter(@Param("userId") Long userId, @Param("since") Instant since);
+
+    // Keyset pages, alphabetical, keyed on (label, id)
+
+    @Query(TagRow.SELECT + "WHERE t.user.id = :userId ORDER BY t.label ASC, t.id ASC")
+    List<TagRow> findFirstPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(TagRow.SELECT + "WHERE t.user.id = :userId "
+            + "AND (t.label > :label OR (t.label = :label AND t.id > :id)) "
+            + "ORDER BY t.label ASC, t.id ASC")
+    List<TagRow> findPageByUserIdAfter(@Param("userId") Long userId, @Param("label") String label,
+            @Param("id") Long id, Pageable pageable);
 
     Optional<Tag> findByUserIdAndLabel(Long userId, String label);
 
@@ -18,5 +58,16 @@ public interface TagRepository extends JpaRepository<Tag, Long> {
 
     void deleteByIdAndUserId(Long id, Long userId);
 
-    void deleteByUserId(Long userId);
+    // Tombstone purge, oldest first, one bounded batch per transaction. Tags still
+    // referenced by a todo, time block, archived block or timer wait until those are gone.
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM tags WHERE id IN (SELECT t.id FROM tags t "
+            + "WHERE t.deleted_at < :cutoff "
+            + "AND NOT EXISTS (SELECT 1 FROM todos td WHERE td.tag_id = t.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM time_blocks tb WHERE tb.tag_id = t.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM time_blocks_archive tba WHERE tba.tag_id = t.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM timers tm WHERE tm.tag_id = t.id) "
+            + "ORDER BY t.deleted_at LIMIT :limit)", nativeQuery = true)
+    int purgeDeletedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
 }
@@ -1,64 +1,170 @@
 package dev.atinroy.backend.repository;
 
-import dev.atinroy.backend.entity.BlockPurpose;
+import dev.atinroy.backend.dto.stats.TimeBlockSummary;
 import dev.atinroy.backend.entity.TimeBlock;
+import dev.atinroy.backend.repository.projection.DailyBlockTotals;
+import dev.atinroy.backend.repository.projection.TagFocusTime;
+import dev.atinroy.backend.repository.projection.TimeBlockRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TimeBlockRepository extends JpaRepository<TimeBlock, Long> {
+public interface TimeBlockRepository extends JpaRepository<TimeBlock, Long>, TimeBlockRepositoryCustom {
 
-    List<TimeBlock> findByUserId(Long userId);
+    @EntityGraph(TimeBlock.WITH_TODO_AND_TAG)
+    Optional<TimeBlock> findByIdAndUserId(Long id, Long userId);
 
-    Optional<TimeBlock> findByUserIdAndEndedAtIsNull(Long userId);
+    boolean existsByUserIdAndEndedAtIsNull(Long userId);
 
-    @Query("SELECT tb FROM TimeBlock tb WHERE tb.user.id = :userId AND DATE(tb.startedAt) = :date ORDER BY tb.startedAt ASC")
-    List<TimeBlock> findByUserIdAndDate(@Param("userId") Long userId, @Param("date") LocalDate date);
+    // Read path: flat rows straight into records, no managed entities
 
-    @Query("SELECT tb FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.startedAt BETWEEN :startDate AND :endDate ORDER BY tb.startedAt ASC")
-    List<TimeBlock> findByUserIdAndDateRange(@Param("userId") Long userId, @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate);
+    @Query(TimeBlockRow.SELECT + "WHERE tb.id = :id AND tb.user.id = :userId")
+    Optional<TimeBlockRow> findRowByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
 
-    List<TimeBlock> findByUserIdAndPurpose(Long userId, BlockPurpose purpose);
+    @Query(TimeBlockRow.SELECT + "WHERE tb.user.id = :userId AND tb.endedAt IS NULL")
+    Optional<TimeBlockRow> findActiveRowByUserId(@Param("userId") Long userId);
 
-    List<TimeBlock> findByUserIdAndTagId(Long userId, Long tagId);
+    // Per-day lookups use half-open [day, day + 1) ranges on startedAt instead of
+    // wrapping the column in a date function, so idx_time_blocks_user_started_at stays usable
 
-    List<TimeBlock> findByUserIdAndTodoId(Long userId, Long todoId);
+    default List<TimeBlockSummary> findTimelineByUserIdAndDate(Long userId, LocalDate date) {
+        return findTimelineByUserIdAndStartedAtInRange(userId, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
 
-    @Query("SELECT COALESCE(SUM(tb.actualDurationSeconds), 0) FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' AND tb.endedAt IS NOT NULL")
-    Long getTotalFocusTimeByUserId(@Param("userId") Long userId);
+    @Query("SELECT new dev.atinroy.backend.dto.stats.TimeBlockSummary(tb.id, tb.purpose, tb.startedAt, tb.endedAt, "
+            + "tb.actualDurationSeconds, t.label, td.title) "
+            + "FROM TimeBlock tb LEFT JOIN tb.tag t LEFT JOIN tb.todo td "
+            + "WHERE tb.user.id = :userId AND tb.startedAt >= :from AND tb.startedAt < :until AND tb.endedAt IS NOT NULL "
+            + "ORDER BY tb.startedAt ASC")
+    List<TimeBlockSummary> findTimelineByUserIdAndStartedAtInRange(@Param("userId") Long userId,
+            @Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
 
-    @Query("SELECT COALESCE(SUM(tb.actualDurationSeconds), 0) FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' AND DATE(tb.startedAt) = :date AND tb.endedAt IS NOT NULL")
-    Long getTotalFocusTimeByUserIdAndDate(@Param("userId") Long userId, @Param("date") LocalDate date);
+    // Delta sync: changes and tombstones after a watermark, served by idx_time_blocks_user_updated_at
+
+    @Query(TimeBlockRow.SELECT + "WHERE tb.user.id = :userId AND tb.updatedAt > :since")
+    List<TimeBlockRow> findRowsByUserIdUpdatedAfter(@Param("userId") Long userId, @Param("since") Instant since);
+
+    @Query(value = "SELECT id FROM time_blocks WHERE user_id = :userId AND updated_at > :since AND deleted_at IS NOT NULL",
+            nativeQuery = true)
+    List<Long> findDeletedIdsByUserIdUpdatedAfter(@Param("userId") Long userId, @Param("since") Instant since);
+
+    // Keyset pages, newest first, keyed on (startedAt, id)
+
+    @Query(TimeBlockRow.SELECT + "WHERE tb.user.id = :userId ORDER BY tb.startedAt DESC, tb.id DESC")
+    List<TimeBlockRow> findFirstPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(TimeBlockRow.SELECT + "WHERE tb.user.id = :userId "
+            + "AND (tb.startedAt < :startedAt OR (tb.startedAt = :startedAt AND tb.id < :id)) "
+            + "ORDER BY tb.startedAt DESC, tb.id DESC")
+    List<TimeBlockRow> findPageByUserIdAfter(@Param("userId") Long userId, @Param("startedAt") LocalDateTime startedAt,
+            @Param("id") Long id, Pageable pageable);
+
+    // Tag usage, served by idx_time_blocks_tag_id
+
+    long countByUserIdAndTagId(Long userId, Long tagId);
+
+    boolean existsByUserIdAndTagId(Long userId, Long tagId);
+
+    default Long getTotalFocusTimeByUserIdAndDate(Long userId, LocalDate date) {
+        return getTotalFocusTimeByUserIdAndStartedAtInRange(userId, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    @Query("SELECT COALESCE(SUM(tb.actualDurationSeconds), 0) FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' AND tb.startedAt >= :from AND tb.startedAt < :until AND tb.endedAt IS NOT NULL")
+    Long getTotalFocusTimeByUserIdAndStartedAtInRange(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+            @Param("until") LocalDateTime until);
 
     @Query("SELECT COALESCE(SUM(tb.actualDurationSeconds), 0) FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' AND tb.startedAt BETWEEN :startDate AND :endDate AND tb.endedAt IS NOT NULL")
     Long getTotalFocusTimeByUserIdAndDateRange(@Param("userId") Long userId,
             @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
-    @Query("SELECT COUNT(tb) FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' AND tb.endedAt IS NOT NULL")
-    Long countFocusSessionsByUserId(@Param("userId") Long userId);
-
-    @Query("SELECT COUNT(tb) FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' AND DATE(tb.startedAt) = :date AND tb.endedAt IS NOT NULL")
-    Long countFocusSessionsByUserIdAndDate(@Param("userId") Long userId, @Param("date") LocalDate date);
+    default Long countFocusSessionsByUserIdAndDate(Long userId, LocalDate date) {
+        return countFocusSessionsByUserIdAndStartedAtInRange(userId, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
 
-    @Query("SELECT tb.tag.id, tb.tag.label, SUM(tb.actualDurationSeconds) FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' AND tb.tag IS NOT NULL AND tb.endedAt IS NOT NULL GROUP BY tb.tag.id, tb.tag.label")
-    List<Object[]> getFocusTimeByTag(@Param("userId") Long userId);
+    @Query("SELECT COUNT(tb) FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' AND tb.startedAt >= :from AND tb.startedAt < :until AND tb.endedAt IS NOT NULL")
+    Long countFocusSessionsByUserIdAndStartedAtInRange(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+            @Param("until") LocalDateTime until);
 
-    @Query("SELECT tb.tag.id, tb.tag.label, SUM(tb.actualDurationSeconds) FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' AND tb.tag IS NOT NULL AND DATE(tb.startedAt) = :date AND tb.endedAt IS NOT NULL GROUP BY tb.tag.id, tb.tag.label")
-    List<Object[]> getFocusTimeByTagAndDate(@Param("userId") Long userId, @Param("date") LocalDate date);
+    @Query("SELECT new dev.atinroy.backend.repository.projection.TagFocusTime(t.id, t.label, t.hexColor, SUM(tb.actualDurationSeconds)) "
+            + "FROM TimeBlock tb JOIN tb.tag t WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' AND tb.endedAt IS NOT NULL "
+            + "GROUP BY t.id, t.label, t.hexColor")
+    List<TagFocusTime> getFocusTimeByTag(@Param("userId") Long userId);
 
-    @Query("SELECT DISTINCT DATE(tb.startedAt) FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' AND tb.endedAt IS NOT NULL ORDER BY DATE(tb.startedAt) ASC")
-    List<LocalDate> getDistinctFocusDates(@Param("userId") Long userId);
+    default List<TagFocusTime> getFocusTimeByTagAndDate(Long userId, LocalDate date) {
+        return getFocusTimeByTagAndDateRange(userId, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
 
-    @Query("SELECT AVG(tb.actualDurationSeconds) FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' AND tb.endedAt IS NOT NULL")
-    Double getAverageFocusSessionDuration(@Param("userId") Long userId);
+    @Query("SELECT new dev.atinroy.backend.repository.projection.TagFocusTime(t.id, t.label, t.hexColor, SUM(tb.actualDurationSeconds)) "
+            + "FROM TimeBlock tb JOIN tb.tag t WHERE tb.user.id = :userId AND tb.purpose = 'FOCUS' "
+            + "AND tb.startedAt >= :startDate AND tb.startedAt < :endDate AND tb.endedAt IS NOT NULL "
+            + "GROUP BY t.id, t.label, t.hexColor")
+    List<TagFocusTime> getFocusTimeByTagAndDateRange(@Param("userId") Long userId,
+            @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
-    void deleteByUserId(Long userId);
+    @Query("SELECT new dev.atinroy.backend.repository.projection.DailyBlockTotals(CAST(tb.startedAt AS LocalDate), "
+            + "COALESCE(SUM(CASE WHEN tb.purpose = 'FOCUS' THEN tb.actualDurationSeconds ELSE 0L END), 0L), "
+            + "COALESCE(SUM(CASE WHEN tb.purpose <> 'FOCUS' THEN tb.actualDurationSeconds ELSE 0L END), 0L), "
+            + "SUM(CASE WHEN tb.purpose = 'FOCUS' THEN 1L ELSE 0L END), "
+            + "SUM(CASE WHEN tb.completed = true THEN 1L ELSE 0L END)) "
+            + "FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.endedAt IS NOT NULL "
+            + "GROUP BY CAST(tb.startedAt AS LocalDate)")
+    List<DailyBlockTotals> getDailyTotalsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new dev.atinroy.backend.repository.projection.DailyBlockTotals(CAST(tb.startedAt AS LocalDate), "
+            + "COALESCE(SUM(CASE WHEN tb.purpose = 'FOCUS' THEN tb.actualDurationSeconds ELSE 0L END), 0L), "
+            + "COALESCE(SUM(CASE WHEN tb.purpose <> 'FOCUS' THEN tb.actualDurationSeconds ELSE 0L END), 0L), "
+            + "SUM(CASE WHEN tb.purpose = 'FOCUS' THEN 1L ELSE 0L END), "
+            + "SUM(CASE WHEN tb.completed = true THEN 1L ELSE 0L END)) "
+            + "FROM TimeBlock tb WHERE tb.user.id = :userId AND tb.endedAt IS NOT NULL "
+            + "AND tb.startedAt >= :from AND tb.startedAt < :until "
+            + "GROUP BY CAST(tb.startedAt AS LocalDate) ORDER BY CAST(tb.startedAt AS LocalDate)")
+    List<DailyBlockTotals> getDailyTotalsByUserIdAndStartedAtInRange(@Param("userId") Long userId,
+            @Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+
+    // Users with ended blocks old enough to archive, pruned to the partitions
+    // before the cutoff
+    @Query(value = "SELECT DISTINCT user_id FROM time_blocks WHERE started_at < :cutoff "
+            + "AND ended_at IS NOT NULL AND deleted_at IS NULL", nativeQuery = true)
+    List<Long> findUserIdsWithBlocksToArchive(@Param("cutoff") LocalDateTime cutoff);
+
+    // Creates the started_at partition for the month, see V3__partition_time_blocks
+    @Transactional
+    @Query(value = "SELECT create_time_blocks_partition(CAST(:month AS date))", nativeQuery = true)
+    boolean createPartitionForMonth(@Param("month") LocalDate month);
+
+    // Bulk changes, one statement each, updated_at set by hand, see BaseEntity.updatedAt
+
+    // Tag merge, tombstones included
+    @Modifying
+    @Query(value = "UPDATE time_blocks SET tag_id = :targetId, updated_at = now() "
+            + "WHERE user_id = :userId AND tag_id = :sourceId", nativeQuery = true)
+    int reassignTag(@Param("userId") Long userId, @Param("sourceId") Long sourceId,
+            @Param("targetId") Long targetId);
+
+    // Unlinks the open block from deleted todos, so it can still end. Ended blocks
+    // keep their todo_id, the todo stays restorable until it is purged.
+    @Modifying
+    @Query(value = "UPDATE time_blocks SET todo_id = NULL, updated_at = now() "
+            + "WHERE user_id = :userId AND todo_id IN (:todoIds) AND ended_at IS NULL", nativeQuery = true)
+    int detachOpenBlocks(@Param("userId") Long userId, @Param("todoIds") Collection<Long> todoIds);
+
+    // Tombstone purge, oldest first, one bounded batch per transaction
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM time_blocks WHERE id IN (SELECT id FROM time_blocks "
+            + "WHERE deleted_at < :cutoff ORDER BY deleted_at LIMIT :limit)", nativeQuery = true)
+    int purgeDeletedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
 }
@@ -0,0 +1,23 @@
+package dev.atinroy.backend.repository;
+
+import dev.atinroy.backend.dto.stats.StatsDimension;
+import dev.atinroy.backend.dto.timeblock.TimeBlockFilter;
+import dev.atinroy.backend.entity.TimeBlock;
+import dev.atinroy.backend.repository.projection.StatsBucket;
+import dev.atinroy.backend.repository.projection.TimeBlockRow;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+public interface TimeBlockRepositoryCustom {
+
+    List<TimeBlockRow> search(Long userId, TimeBlockFilter filter);
+
+    List<TimeBlockRow> searchArchived(Long userId, TimeBlockFilter filter);
+
+    void insertAll(List<TimeBlock> timeBlocks);
+
+    List<StatsBucket> aggregateStats(Long userId, LocalDateTime from, LocalDateTime until,
+            Set<StatsDimension> dimensions, boolean includeArchived);
+}
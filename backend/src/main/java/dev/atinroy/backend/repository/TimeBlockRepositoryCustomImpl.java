@@ -0,0 +1,244 @@
+package dev.atinroy.backend.repository;
+
+import dev.atinroy.backend.dto.stats.StatsDimension;
+import dev.atinroy.backend.dto.timeblock.TimeBlockFilter;
+import dev.atinroy.backend.entity.ArchivedTimeBlock;
+import dev.atinroy.backend.entity.BlockPurpose;
+import dev.atinroy.backend.entity.Tag;
+import dev.atinroy.backend.entity.TimeBlock;
+import dev.atinroy.backend.entity.Todo;
+import dev.atinroy.backend.repository.projection.StatsBucket;
+import dev.atinroy.backend.repository.projection.TimeBlockRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class TimeBlockRepositoryCustomImpl implements TimeBlockRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int batchSize;
+
+    @Override
+    public List<TimeBlockRow> search(Long userId, TimeBlockFilter filter) {
+        return search(TimeBlock.class, userId, filter);
+    }
+
+    // Archived blocks have the same attributes, so the same query runs against them
+    @Override
+    public List<TimeBlockRow> searchArchived(Long userId, TimeBlockFilter filter) {
+        return search(ArchivedTimeBlock.class, userId, filter);
+    }
+
+    // Every filter present in the request is ANDed into a single query that is
+    // always anchored on user_id, so it can be served by the per-user indexes
+    private List<TimeBlockRow> search(Class<?> entityClass, Long userId, TimeBlockFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TimeBlockRow> query = cb.createQuery(TimeBlockRow.class);
+        Root<?> timeBlock = query.from(entityClass);
+        Join<?, Todo> todo = timeBlock.join("todo", JoinType.LEFT);
+        Join<Todo, Tag> todoTag = todo.join("tag", JoinType.LEFT);
+        Join<?, Tag> tag = timeBlock.join("tag", JoinType.LEFT);
+        Path<LocalDateTime> startedAt = timeBlock.get("startedAt");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(timeBlock.get("user").get("id"), userId));
+
+        if (filter.getDate() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(startedAt, filter.getDate().atStartOfDay()));
+            predicates.add(cb.lessThan(startedAt, filter.getDate().plusDays(1).atStartOfDay()));
+        }
+        if (filter.getStartDate() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(startedAt, filter.getStartDate()));
+        }
+        if (filter.getEndDate() != null) {
+            predicates.add(cb.lessThanOrEqualTo(startedAt, filter.getEndDate()));
+        }
+        if (filter.getPurpose() != null) {
+            Path<BlockPurpose> purpose = timeBlock.get("purpose");
+            predicates.add(cb.equal(purpose, filter.getPurpose()));
+        }
+        if (filter.getTagId() != null) {
+            predicates.add(cb.equal(tag.get("id"), filter.getTagId()));
+        }
+        if (filter.getTodoId() != null) {
+            predicates.add(cb.equal(todo.get("id"), filter.getTodoId()));
+        }
+
+        // Same column order as TimeBlockRow.SELECT
+        query.select(cb.construct(TimeBlockRow.class,
+                timeBlock.get("id"), timeBlock.get("purpose"), timeBlock.get("mode"), startedAt,
+                timeBlock.get("endedAt"), timeBlock.get("plannedDurationSeconds"),
+                timeBlock.get("actualDurationSeconds"), timeBlock.get("completed"), timeBlock.get("notes"),
+                todo.get("id"), todo.get("title"), todo.get("description"), todo.get("completed"),
+                todo.get("priority"), todo.get("createdAt"), todo.get("updatedAt"),
+                todoTag.get("id"), todoTag.get("label"), todoTag.get("hexColor"), todoTag.get("createdAt"),
+                tag.get("id"), tag.get("label"), tag.get("hexColor"), tag.get("createdAt")))
+                .where(predicates.toArray(Predicate[]::new));
+        if (filter.getSort() == Sort.Direction.DESC) {
+            query.orderBy(cb.desc(startedAt), cb.desc(timeBlock.get("id")));
+        } else {
+            query.orderBy(cb.asc(startedAt), cb.asc(timeBlock.get("id")));
+        }
+
+        TypedQuery<TimeBlockRow> typedQuery = entityManager.createQuery(query);
+        if (filter.getLimit() != null) {
+            typedQuery.setMaxResults(filter.getLimit());
+        }
+        return typedQuery.getResultList();
+    }
+
+    // Inserts go out as JDBC batches. The persistence context is flushed and cleared
+    // after every batch so it stays small however many rows are imported
+    @Override
+    public void insertAll(List<TimeBlock> timeBlocks) {
+        for (int i = 0; i < timeBlocks.size(); i++) {
+            entityManager.persist(timeBlocks.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // Grouped stats in one statement. Only the fixed expressions below are spliced
+    // into the SQL, the user and the range are always bound parameters. With at
+    // least one dimension the grouping sets also return the grand total row
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<StatsBucket> aggregateStats(Long userId, LocalDateTime from, LocalDateTime until,
+            Set<StatsDimension> dimensions, boolean includeArchived) {
+        List<String> groupColumns = new ArrayList<>();
+        StringBuilder joins = new StringBuilder();
+
+        String tagColumns = "CAST(NULL AS bigint) AS tag_id, CAST(NULL AS varchar) AS tag_label, "
+                + "CAST(NULL AS varchar) AS tag_hex_color";
+        if (dimensions.contains(StatsDimension.TAG)) {
+            tagColumns = "tb.tag_id AS tag_id, t.tag_label AS tag_label, t.tag_hex_color AS tag_hex_color";
+            joins.append(" LEFT JOIN tags t ON t.id = tb.tag_id");
+            groupColumns.addAll(List.of("tb.tag_id", "t.tag_label", "t.tag_hex_color"));
+        }
+
+        String todoColumns = "CAST(NULL AS bigint) AS todo_id, CAST(NULL AS varchar) AS todo_title";
+        if (dimensions.contains(StatsDimension.TODO)) {
+            todoColumns = "tb.todo_id AS todo_id, td.title AS todo_title";
+            joins.append(" LEFT JOIN todos td ON td.id = tb.todo_id");
+            groupColumns.addAll(List.of("tb.todo_id", "td.title"));
+        }
+
+        String purposeColumn = "CAST(NULL AS varchar) AS purpose";
+        if (dimensions.contains(StatsDimension.PURPOSE)) {
+            purposeColumn = "tb.purpose AS purpose";
+            groupColumns.add("tb.purpose");
+        }
+
+        String periodColumn = "CAST(NULL AS date) AS period_start";
+        String periodUnit = periodUnit(dimensions);
+        if (periodUnit != null) {
+            String period = "CAST(date_trunc('" + periodUnit + "', tb.started_at) AS date)";
+            periodColumn = period + " AS period_start";
+            groupColumns.add(period);
+        }
+
+        String hourColumn = "CAST(NULL AS integer) AS hour_of_day";
+        if (dimensions.contains(StatsDimension.HOUR)) {
+            String hour = "CAST(EXTRACT(HOUR FROM tb.started_at) AS integer)";
+            hourColumn = hour + " AS hour_of_day";
+            groupColumns.add(hour);
+        }
+
+        String totalColumn = groupColumns.isEmpty() ? "0 AS total" : "GROUPING(" + groupColumns.get(0) + ") AS total";
+
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(totalColumn).append(", ")
+                .append(tagColumns).append(", ")
+                .append(todoColumns).append(", ")
+                .append(purposeColumn).append(", ")
+                .append(periodColumn).append(", ")
+                .append(hourColumn).append(", ")
+                .append("CAST(COALESCE(SUM(tb.actual_duration_seconds) FILTER (WHERE tb.purpose = 'FOCUS'), 0) AS bigint) AS focus_seconds, ")
+                .append("CAST(COALESCE(SUM(tb.actual_duration_seconds) FILTER (WHERE tb.purpose <> 'FOCUS'), 0) AS bigint) AS break_seconds, ")
+                .append("COUNT(*) FILTER (WHERE tb.purpose = 'FOCUS') AS focus_sessions, ")
+                .append("COUNT(*) FILTER (WHERE tb.mode = 'TIMER') AS timer_blocks, ")
+                .append("COUNT(*) FILTER (WHERE tb.mode = 'TIMER' AND tb.completed) AS completed_timers ")
+                .append(includeArchived ? "FROM time_blocks_with_archive tb" : "FROM time_blocks tb").append(joins)
+                .append(" WHERE tb.user_id = :userId AND tb.ended_at IS NOT NULL AND tb.deleted_at IS NULL")
+                .append(" AND tb.started_at >= :from AND tb.started_at < :until");
+        if (!groupColumns.isEmpty()) {
+            String columns = String.join(", ", groupColumns);
+            sql.append(" GROUP BY GROUPING SETS ((").append(columns).append("), ())")
+                    .append(" ORDER BY total, ").append(columns);
+        }
+
+        NativeQuery<Object[]> query = entityManager.createNativeQuery(sql.toString()).unwrap(NativeQuery.class);
+        query.addScalar("total", Integer.class)
+                .addScalar("tag_id", Long.class)
+                .addScalar("tag_label", String.class)
+                .addScalar("tag_hex_color", String.class)
+                .addScalar("todo_id", Long.class)
+                .addScalar("todo_title", String.class)
+                .addScalar("purpose", String.class)
+                .addScalar("period_start", LocalDate.class)
+                .addScalar("hour_of_day", Integer.class)
+                .addScalar("focus_seconds", Long.class)
+                .addScalar("break_seconds", Long.class)
+                .addScalar("focus_sessions", Long.class)
+                .addScalar("timer_blocks", Long.class)
+                .addScalar("completed_timers", Long.class);
+        query.setParameter("userId", userId)
+                .setParameter("from", from)
+                .setParameter("until", until);
+
+        return query.getResultList().stream()
+                .map(row -> new StatsBucket(
+                        groupColumns.isEmpty() || (Integer) row[0] != 0,
+                        (Long) row[1],
+                        (String) row[2],
+                        (String) row[3],
+                        (Long) row[4],
+                        (String) row[5],
+                        row[6] != null ? BlockPurpose.valueOf((String) row[6]) : null,
+                        (LocalDate) row[7],
+                        (Integer) row[8],
+                        (Long) row[9],
+                        (Long) row[10],
+                        (Long) row[11],
+                        (Long) row[12],
+                        (Long) row[13]))
+                .collect(Collectors.toList());
+    }
+
+    private static String periodUnit(Set<StatsDimension> dimensions) {
+        if (dimensions.contains(StatsDimension.DAY)) {
+            return "day";
+        }
+        if (dimensions.contains(StatsDimension.WEEK)) {
+            return "week";
+        }
+        if (dimensions.contains(StatsDimension.MONTH)) {
+            return "month";
+        }
+        return null;
+    }
+}
@@ -1,28 +1,158 @@
 package dev.atinroy.backend.repository;
 
 import dev.atinroy.backend.entity.Todo;
+import dev.atinroy.backend.repository.projection.TodoRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TodoRepository extends JpaRepository<Todo, Long> {
 
-    List<Todo> findByUserId(Long userId);
+    @EntityGraph(attributePaths = "tag")
+    Optional<Todo> findByIdAndUserId(Long id, Long userId);
 
-    List<Todo> findByUserIdAndCompleted(Long userId, Boolean completed);
+    @EntityGraph(attributePaths = "tag")
+    List<Todo> findByIdInAndUserId(Collection<Long> ids, Long userId);
 
-    List<Todo> findByUserIdAndTagId(Long userId, Long tagId);
+    @Query("SELECT t.id FROM Todo t WHERE t.id IN :ids AND t.user.id = :userId")
+    List<Long> findIdsByIdInAndUserId(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
 
-    @Query("SELECT t FROM Todo t WHERE t.user.id = :userId AND t.completed = false ORDER BY t.priority ASC NULLS LAST, t.createdAt DESC")
-    List<Todo> findIncompleteTodosByUserOrderedByPriority(@Param("userId") Long userId);
+    // Tag usage, served by idx_todos_tag_id
+
+    long countByUserIdAndTagId(Long userId, Long tagId);
+
+    boolean existsByUserIdAndTagId(Long userId, Long tagId);
+
+    // Read path: flat rows straight into records, no managed entities
+
+    @Query(TodoRow.SELECT + "WHERE t.id = :id AND t.user.id = :userId")
+    Optional<TodoRow> findRowByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query(TodoRow.SELECT + "WHERE t.user.id = :userId")
+    List<TodoRow> findRowsByUserId(@Param("userId") Long userId);
+
+    @Query(TodoRow.SELECT + "WHERE t.user.id = :userId AND t.completed = :completed")
+    List<TodoRow> findRowsByUserIdAndCompleted(@Param("userId") Long userId, @Param("completed") Boolean completed);
+
+    @Query(TodoRow.SELECT + "WHERE t.user.id = :userId AND tg.id = :tagId")
+    List<TodoRow> findRowsByUserIdAndTagId(@Param("userId") Long userId, @Param("tagId") Long tagId);
+
+    @Query(TodoRow.SELECT + "WHERE t.user.id = :userId AND t.completed = false ORDER BY t.priority ASC NULLS LAST, t.createdAt DESC")
+    List<TodoRow> findIncompleteTodosByUserOrderedByPriority(@Param("userId") Long userId);
+
+    // Manual order, see RankKeys. The incomplete list and its neighbour lookups are
+    // served by idx_todos_user_sort_key, ties on a key broken by id.
+
+    @Query(TodoRow.SELECT + "WHERE t.user.id = :userId AND t.completed = false ORDER BY t.sortKey, t.id")
+    List<TodoRow> findIncompleteTodosByUserOrderedBySortKey(@Param("userId") Long userId);
+
+    @Query(value = "SELECT sort_key FROM todos "
+            + "WHERE user_id = :userId AND deleted_at IS NULL AND completed = false AND id <> :excludedId "
+            + "ORDER BY sort_key, id LIMIT 1", nativeQuery = true)
+    Optional<String> findFirstSortKey(@Param("userId") Long userId, @Param("excludedId") Long excludedId);
+
+    @Query(value = "SELECT sort_key FROM todos "
+            + "WHERE user_id = :userId AND deleted_at IS NULL AND completed = false "
+            + "ORDER BY sort_key DESC, id DESC LIMIT 1", nativeQuery = true)
+    Optional<String> findLastSortKey(@Param("userId") Long userId);
+
+    @Query(value = "SELECT sort_key FROM todos "
+            + "WHERE user_id = :userId AND deleted_at IS NULL AND completed = false AND id <> :excludedId "
+            + "AND (sort_key, id) > (:sortKey, :id) "
+            + "ORDER BY sort_key, id LIMIT 1", nativeQuery = true)
+    Optional<String> findNextSortKey(@Param("userId") Long userId, @Param("sortKey") String sortKey,
+            @Param("id") Long id, @Param("excludedId") Long excludedId);
+
+    // Serializes the writes to one user's keys until the transaction ends, so a move
+    // or a new todo never computes its key from keys a rebalance is rewriting. The
+    // lock is keyed on the user id alone, todo order is its only user.
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:userId)", nativeQuery = true)
+    int lockSortKeys(@Param("userId") Long userId);
+
+    // Rebalancing: every live todo of a user in order, and the users whose keys
+    // grew too long, served by idx_todos_sort_key_length
+
+    List<Todo> findByUserIdOrderBySortKeyAscIdAsc(Long userId);
+
+    @Query(value = "SELECT DISTINCT user_id FROM todos WHERE deleted_at IS NULL AND length(sort_key) > :maxLength",
+            nativeQuery = true)
+    List<Long> findUserIdsWithSortKeysLongerThan(@Param("maxLength") int maxLength);
+
+    // Delta sync: changes and tombstones after a watermark, served by idx_todos_user_updated_at
+
+    @Query(TodoRow.SELECT + "WHERE t.user.id = :userId AND t.updatedAt > :since")
+    List<TodoRow> findRowsByUserIdUpdatedAfter(@Param("userId") Long userId, @Param("since") Instant since);
+
+    @Query(value = "SELECT id FROM todos WHERE user_id = :userId AND updated_at > :since AND deleted_at IS NOT NULL",
+            nativeQuery = true)
+    List<Long> findDeletedIdsByUserIdUpdatedAfter(@Param("userId") Long userId, @Param("since") Instant since);
+
+    // Keyset pages, newest first, keyed on (createdAt, id)
+
+    @Query(TodoRow.SELECT + "WHERE t.user.id = :userId ORDER BY t.createdAt DESC, t.id DESC")
+    List<TodoRow> findFirstPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(TodoRow.SELECT + "WHERE t.user.id = :userId "
+            + "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) "
+            + "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TodoRow> findPageByUserIdAfter(@Param("userId") Long userId, @Param("createdAt") Instant createdAt,
+            @Param("id") Long id, Pageable pageable);
 
     long countByUserId(Long userId);
 
     long countByUserIdAndCompleted(Long userId, Boolean completed);
 
-    void deleteByUserId(Long userId);
+    // Bulk changes, one statement each, updated_at set by hand, see BaseEntity.updatedAt
+
+    @Modifying
+    @Query(value = "UPDATE todos SET completed = :completed, updated_at = now() "
+            + "WHERE id IN (:ids) AND user_id = :userId AND deleted_at IS NULL", nativeQuery = true)
+    int updateCompleted(@Param("userId") Long userId, @Param("ids") Collection<Long> ids,
+            @Param("completed") boolean completed);
+
+    @Modifying
+    @Query(value = "UPDATE todos SET tag_id = :tagId, updated_at = now() "
+            + "WHERE id IN (:ids) AND user_id = :userId AND deleted_at IS NULL", nativeQuery = true)
+    int updateTag(@Param("userId") Long userId, @Param("ids") Collection<Long> ids, @Param("tagId") Long tagId);
+
+    @Modifying
+    @Query(value = "UPDATE todos SET priority = :priority, updated_at = now() "
+            + "WHERE id IN (:ids) AND user_id = :userId AND deleted_at IS NULL", nativeQuery = true)
+    int updatePriority(@Param("userId") Long userId, @Param("ids") Collection<Long> ids,
+            @Param("priority") Integer priority);
+
+    // Same tombstone as @SQLDelete on Todo
+    @Modifying
+    @Query(value = "UPDATE todos SET deleted_at = now(), updated_at = now() "
+            + "WHERE id IN (:ids) AND user_id = :userId AND deleted_at IS NULL", nativeQuery = true)
+    int softDelete(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    // Tag merge, tombstones included
+    @Modifying
+    @Query(value = "UPDATE todos SET tag_id = :targetId, updated_at = now() "
+            + "WHERE user_id = :userId AND tag_id = :sourceId", nativeQuery = true)
+    int reassignTag(@Param("userId") Long userId, @Param("sourceId") Long sourceId,
+            @Param("targetId") Long targetId);
+
+    // Tombstone purge, oldest first, one bounded batch per transaction. Todos still
+    // referenced by a live, deleted or archived time block wait until it is gone.
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM todos WHERE id IN (SELECT t.id FROM todos t "
+            + "WHERE t.deleted_at < :cutoff "
+            + "AND NOT EXISTS (SELECT 1 FROM time_blocks tb WHERE tb.todo_id = t.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM time_blocks_archive tba WHERE tba.todo_id = t.id) "
+            + "ORDER BY t.deleted_at LIMIT :limit)", nativeQuery = true)
+    int purgeDeletedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
 }
@@ -0,0 +1,39 @@
+package dev.atinroy.backend.repository;
+
+import dev.atinroy.backend.entity.UserDailyStats;
+import dev.atinroy.backend.repository.projection.DailyBlockTotals;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserDailyStatsRepository extends JpaRepository<UserDailyStats, Long> {
+
+    Optional<UserDailyStats> findByUserIdAndActivityDate(Long userId, LocalDate activityDate);
+
+    List<UserDailyStats> findByUserIdAndActivityDateIn(Long userId, Collection<LocalDate> activityDates);
+
+    @Query("SELECT new dev.atinroy.backend.repository.projection.DailyBlockTotals(d.activityDate, d.focusSeconds, "
+            + "d.breakSeconds, d.sessionCount, d.completedTimers) FROM UserDailyStats d "
+            + "WHERE d.user.id = :userId AND d.activityDate BETWEEN :startDate AND :endDate ORDER BY d.activityDate ASC")
+    List<DailyBlockTotals> getTotalsByUserIdAndActivityDateBetween(@Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT MAX(d.activityDate) FROM UserDailyStats d WHERE d.user.id = :userId AND d.sessionCount > 0")
+    LocalDate findLastActiveDate(@Param("userId") Long userId);
+
+    @Query("SELECT d.activityDate FROM UserDailyStats d WHERE d.user.id = :userId AND d.sessionCount > 0 "
+            + "ORDER BY d.activityDate ASC")
+    List<LocalDate> findActiveDatesByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM UserDailyStats d WHERE d.user.id = :userId")
+    void deleteAllByUserId(@Param("userId") Long userId);
+}
@@ -0,0 +1,33 @@
+package dev.atinroy.backend.repository;
+
+import dev.atinroy.backend.entity.UserLifetimeStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UserLifetimeStatsRepository extends JpaRepository<UserLifetimeStats, Long> {
+
+    Optional<UserLifetimeStats> findByUserId(Long userId);
+
+    boolean existsByUserId(Long userId);
+
+    // The row every rollup write locks first, see StatsRollupService
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserLifetimeStats s WHERE s.user.id = :userId")
+    Optional<UserLifetimeStats> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    // An empty row for a user not rolled up yet, 1 if this call created it. A
+    // concurrent insert for the same user waits here until the first one commits.
+    @Modifying
+    @Query(value = "INSERT INTO user_lifetime_stats (id, created_at, updated_at, user_id, total_focus_seconds, "
+            + "session_count, active_days) VALUES (nextval('user_lifetime_stats_seq'), now(), now(), :userId, 0, 0, 0) "
+            + "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int insertIfMissing(@Param("userId") Long userId);
+}
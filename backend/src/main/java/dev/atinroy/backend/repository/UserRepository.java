@@ -2,18 +2,55 @@ package dev.atinroy.backend.repository;
 
 import dev.atinroy.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    // Read-write, so the lookups behind registration, login and authentication stay
+    // on the primary. A lagging replica would let a taken email or username through
+    // to the unique constraint, or reject an account that was just registered.
+
+    @Transactional
     Optional<User> findByEmail(String email);
 
+    @Transactional
     Optional<User> findByUsername(String username);
 
+    @Transactional
     boolean existsByEmail(String email);
 
+    @Transactional
     boolean existsByUsername(String username);
+
+    // Live accounts on this shard whose stats were never rolled up, see RollupBackfillService
+    @Query("SELECT u.id FROM User u WHERE u.deletedAt IS NULL "
+            + "AND NOT EXISTS (SELECT 1 FROM UserLifetimeStats s WHERE s.user = u)")
+    List<Long> findIdsWithoutLifetimeStats();
+
+    // The copy of a directory entry on the user's home shard, see ShardRouter
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO users (id, created_at, updated_at, email, password, username) "
+            + "VALUES (:id, :createdAt, :updatedAt, :email, :password, :username) "
+            + "ON CONFLICT (id) DO UPDATE SET updated_at = EXCLUDED.updated_at, email = EXCLUDED.email, "
+            + "password = EXCLUDED.password, username = EXCLUDED.username", nativeQuery = true)
+    void saveHomeShardCopy(@Param("id") Long id, @Param("createdAt") Instant createdAt,
+            @Param("updatedAt") Instant updatedAt, @Param("email") String email,
+            @Param("password") String password, @Param("username") String username);
+
+    // Locks the account out at once, its data goes later, see AccountDeletionService
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users SET deleted_at = now(), updated_at = now() WHERE id = :id AND deleted_at IS NULL",
+            nativeQuery = true)
+    int disable(@Param("id") Long id);
 }
@@ -12,6 +12,4 @@ public interface UserSettingsRepository extends JpaRepository<UserSettings, Long
     Optional<UserSettings> findByUserId(Long userId);
 
     boolean existsByUserId(Long userId);
-
-    void deleteByUserId(Long userId);
 }
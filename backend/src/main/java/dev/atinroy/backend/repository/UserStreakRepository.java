@@ -12,6 +12,4 @@ public interface UserStreakRepository extends JpaRepository<UserStreak, Long> {
     Optional<UserStreak> findByUserId(Long userId);
 
     boolean existsByUserId(Long userId);
-
-    void deleteByUserId(Long userId);
 }
@@ -0,0 +1,11 @@
+package dev.atinroy.backend.repository.projection;
+
+import java.time.LocalDate;
+
+public record DailyBlockTotals(
+        LocalDate activityDate,
+        Long focusSeconds,
+        Long breakSeconds,
+        Long sessionCount,
+        Long completedTimers) {
+}
@@ -0,0 +1,12 @@
+package dev.atinroy.backend.repository.projection;
+
+import java.time.LocalDateTime;
+
+public record SearchHitRow(
+        String type,
+        Long id,
+        String title,
+        String text,
+        LocalDateTime startedAt,
+        Float rank) {
+}
@@ -0,0 +1,22 @@
+package dev.atinroy.backend.repository.projection;
+
+import dev.atinroy.backend.entity.BlockPurpose;
+
+import java.time.LocalDate;
+
+public record StatsBucket(
+        boolean total,
+        Long tagId,
+        String tagLabel,
+        String tagHexColor,
+        Long todoId,
+        String todoTitle,
+        BlockPurpose purpose,
+        LocalDate periodStart,
+        Integer hourOfDay,
+        Long focusSeconds,
+        Long breakSeconds,
+        Long focusSessions,
+        Long timerBlocks,
+        Long completedTimers) {
+}
@@ -0,0 +1,8 @@
+package dev.atinroy.backend.repository.projection;
+
+public record TagFocusTime(
+        Long tagId,
+        String label,
+        String hexColor,
+        Long timeSeconds) {
+}
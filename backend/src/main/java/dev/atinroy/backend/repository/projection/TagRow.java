@@ -0,0 +1,13 @@
+package dev.atinroy.backend.repository.projection;
+
+import java.time.Instant;
+
+public record TagRow(
+        Long id,
+        String label,
+        String hexColor,
+        Instant createdAt) {
+
+    public static final String SELECT = "SELECT new dev.atinroy.backend.repository.projection.TagRow("
+            + "t.id, t.label, t.hexColor, t.createdAt) FROM Tag t ";
+}
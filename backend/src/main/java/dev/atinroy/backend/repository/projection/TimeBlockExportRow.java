@@ -0,0 +1,27 @@
+package dev.atinroy.backend.repository.projection;
+
+import java.time.LocalDateTime;
+
+public record TimeBlockExportRow(
+        Long id,
+        String purpose,
+        String mode,
+        LocalDateTime startedAt,
+        LocalDateTime endedAt,
+        Long plannedDurationSeconds,
+        Long actualDurationSeconds,
+        Boolean completed,
+        String notes,
+        Long todoId,
+        String todoTitle,
+        Long tagId,
+        String tagLabel) {
+
+    public static final String CSV_HEADER = "id,purpose,mode,startedAt,endedAt,plannedDurationSeconds,"
+            + "actualDurationSeconds,completed,notes,todoId,todoTitle,tagId,tagLabel";
+
+    public Object[] csvValues() {
+        return new Object[] { id, purpose, mode, startedAt, endedAt, plannedDurationSeconds, actualDurationSeconds,
+                completed, notes, todoId, todoTitle, tagId, tagLabel };
+    }
+}
@@ -0,0 +1,69 @@
+package dev.atinroy.backend.repository.projection;
+
+import dev.atinroy.backend.entity.BlockMode;
+import dev.atinroy.backend.entity.BlockPurpose;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public record TimeBlockRow(
+        Long id,
+        TodoRow todo,
+        TagRow tag,
+        BlockPurpose purpose,
+        BlockMode mode,
+        LocalDateTime startedAt,
+        LocalDateTime endedAt,
+        Long plannedDurationSeconds,
+        Long actualDurationSeconds,
+        Boolean completed,
+        String notes) {
+
+    private static final String COLUMNS = "SELECT new dev.atinroy.backend.repository.projection.TimeBlockRow("
+            + "tb.id, tb.purpose, tb.mode, tb.startedAt, tb.endedAt, "
+            + "tb.plannedDurationSeconds, tb.actualDurationSeconds, tb.completed, tb.notes, "
+            + "td.id, td.title, td.description, td.completed, td.priority, td.sortKey, td.createdAt, td.updatedAt, "
+            + "tdt.id, tdt.label, tdt.hexColor, tdt.createdAt, "
+            + "t.id, t.label, t.hexColor, t.createdAt) ";
+
+    public static final String SELECT = COLUMNS
+            + "FROM TimeBlock tb LEFT JOIN tb.todo td LEFT JOIN td.tag tdt LEFT JOIN tb.tag t ";
+
+    public static final String SELECT_ARCHIVED = COLUMNS
+            + "FROM ArchivedTimeBlock tb LEFT JOIN tb.todo td LEFT JOIN td.tag tdt LEFT JOIN tb.tag t ";
+
+    // Flat form used by the selects above
+    public TimeBlockRow(Long id, BlockPurpose purpose, BlockMode mode, LocalDateTime startedAt,
+            LocalDateTime endedAt, Long plannedDurationSeconds, Long actualDurationSeconds, Boolean completed,
+            String notes,
+            Long todoId, String todoTitle, String todoDescription, Boolean todoCompleted, Integer todoPriority,
+            String todoSortKey, Instant todoCreatedAt, Instant todoUpdatedAt,
+            Long todoTagId, String todoTagLabel, String todoTagHexColor, Instant todoTagCreatedAt,
+            Long tagId, String tagLabel, String tagHexColor, Instant tagCreatedAt) {
+        this(id,
+                todoId != null
+                        ? new TodoRow(todoId, todoTitle, todoDescription, todoCompleted, todoPriority,
+                                todoSortKey, todoCreatedAt, todoUpdatedAt, todoTagId, todoTagLabel, todoTagHexColor,
+                                todoTagCreatedAt)
+                        : null,
+                tagId != null ? new TagRow(tagId, tagLabel, tagHexColor, tagCreatedAt) : null,
+                purpose, mode, startedAt, endedAt, plannedDurationSeconds, actualDurationSeconds, completed, notes);
+    }
+
+    // Same rules as TimeBlock.getCurrentDurationSeconds and getRemainingSeconds
+
+    public Long currentDurationSeconds() {
+        if (endedAt != null) {
+            return actualDurationSeconds;
+        }
+        return ChronoUnit.SECONDS.between(startedAt, LocalDateTime.now());
+    }
+
+    public Long remainingSeconds() {
+        if (mode != BlockMode.TIMER || endedAt != null || plannedDurationSeconds == null) {
+            return null;
+        }
+        return Math.max(0, plannedDurationSeconds - currentDurationSeconds());
+    }
+}
@@ -0,0 +1,21 @@
+package dev.atinroy.backend.repository.projection;
+
+import java.time.Instant;
+
+public record TodoExportRow(
+        Long id,
+        String title,
+        String description,
+        Boolean completed,
+        Integer priority,
+        Long tagId,
+        String tagLabel,
+        Instant createdAt,
+        Instant updatedAt) {
+
+    public static final String CSV_HEADER = "id,title,description,completed,priority,tagId,tagLabel,createdAt,updatedAt";
+
+    public Object[] csvValues() {
+        return new Object[] { id, title, description, completed, priority, tagId, tagLabel, createdAt, updatedAt };
+    }
+}
@@ -0,0 +1,29 @@
+package dev.atinroy.backend.repository.projection;
+
+import java.time.Instant;
+
+public record TodoRow(
+        Long id,
+        String title,
+        String description,
+        TagRow tag,
+        Boolean completed,
+        Integer priority,
+        String sortKey,
+        Instant createdAt,
+        Instant updatedAt) {
+
+    public static final String SELECT = "SELECT new dev.atinroy.backend.repository.projection.TodoRow("
+            + "t.id, t.title, t.description, t.completed, t.priority, t.sortKey, t.createdAt, t.updatedAt, "
+            + "tg.id, tg.label, tg.hexColor, tg.createdAt) "
+            + "FROM Todo t LEFT JOIN t.tag tg ";
+
+    // Flat form used by the SELECT above
+    public TodoRow(Long id, String title, String description, Boolean completed, Integer priority,
+            String sortKey, Instant createdAt, Instant updatedAt,
+            Long tagId, String tagLabel, String tagHexColor, Instant tagCreatedAt) {
+        this(id, title, description,
+                tagId != null ? new TagRow(tagId, tagLabel, tagHexColor, tagCreatedAt) : null,
+                completed, priority, sortKey, createdAt, updatedAt);
+    }
+}
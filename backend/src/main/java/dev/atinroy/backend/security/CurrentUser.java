@@ -0,0 +1,21 @@
+package dev.atinroy.backend.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+// The authenticated user of the current thread, for infrastructure below the
+// controllers that cannot take an @AuthenticationPrincipal
+public final class CurrentUser {
+
+    private CurrentUser() {
+    }
+
+    // Null outside an authenticated request, e.g. at login or in scheduled jobs
+    public static Long getId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            return userDetails.getId();
+        }
+        return null;
+    }
+}
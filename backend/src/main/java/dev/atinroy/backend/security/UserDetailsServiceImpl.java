@@ -16,8 +16,10 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        // Accounts being deleted are disabled, their tokens stop working at once
         User user = userRepository.findByUsername(username)
                 .or(() -> userRepository.findByEmail(username))
+                .filter(found -> found.getDeletedAt() == null)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username or email: " + username));
 
         return UserDetailsImpl.build(user);
@@ -0,0 +1,150 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.config.ShardRouter;
+import dev.atinroy.backend.dto.account.AccountDeletionResponse;
+import dev.atinroy.backend.entity.AccountDeletion;
+import dev.atinroy.backend.entity.AccountDeletionStatus;
+import dev.atinroy.backend.entity.AccountDeletionStep;
+import dev.atinroy.backend.exception.ResourceNotFoundException;
+import dev.atinroy.backend.mapper.AccountDeletionMapper;
+import dev.atinroy.backend.repository.AccountDeletionRepository;
+import dev.atinroy.backend.repository.AccountPurgeRepository;
+import dev.atinroy.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+// Deleting an account locks it out at once and leaves its data to a background
+// job. Deletion records live in the user directory, the data on the user's home
+// shard, see ShardRouter.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountDeletionService {
+
+    private final AccountDeletionRepository accountDeletionRepository;
+    private final AccountPurgeRepository accountPurgeRepository;
+    private final UserRepository userRepository;
+    private final AccountDeletionMapper accountDeletionMapper;
+    private final ShardRouter shardRouter;
+
+    @Value("${app.account-deletion.batch-size}")
+    private int batchSize;
+
+    @Value("${app.account-deletion.max-batches}")
+    private int maxBatches;
+
+    @Value("${app.account-deletion.lease}")
+    private Duration lease;
+
+    // Repeating a request returns the deletion already under way. The record is
+    // written before the account is disabled, so a failure in between still
+    // leaves the job to finish both.
+    public AccountDeletionResponse requestDeletion(Long userId) {
+        AccountDeletion accountDeletion = shardRouter.callOnDirectory(() -> accountDeletionRepository
+                .findOpenByUserId(userId)
+                .orElseGet(() -> createDeletion(userId)));
+        shardRouter.runOnDirectory(() -> userRepository.disable(userId));
+        return accountDeletionMapper.toResponse(accountDeletion);
+    }
+
+    public AccountDeletionResponse getDeletion(UUID token) {
+        AccountDeletion accountDeletion = shardRouter.callOnDirectory(() -> accountDeletionRepository
+                .findByToken(token)
+                .orElseThrow(() -> new ResourceNotFoundException("AccountDeletion", "token", token)));
+        return accountDeletionMapper.toResponse(accountDeletion);
+    }
+
+    // Each instance polls for open deletions and takes the ones no other job holds
+    // a lease on. A run does at most maxBatches chunks per deletion and records
+    // its step after every chunk, so a restart or failure resumes where it left
+    // off once the lease expires.
+    @Scheduled(fixedDelayString = "${app.account-deletion.poll-interval}")
+    public void runOpenDeletions() {
+        for (Long id : shardRouter.callOnDirectory(accountDeletionRepository::findOpenIds)) {
+            if (shardRouter.callOnDirectory(() -> accountDeletionRepository.claim(id, leaseUntil())) == 0) {
+                continue;
+            }
+            try {
+                runDeletion(id);
+            } catch (RuntimeException e) {
+                log.error("Account deletion {} failed, retrying once its lease expires", id, e);
+            }
+        }
+    }
+
+    // Helper methods
+
+    // Two requests can both miss the open deletion. The unique index on open
+    // deletions rejects the second insert, which then returns the first one's row.
+    private AccountDeletion createDeletion(Long userId) {
+        AccountDeletion created = new AccountDeletion();
+        created.setToken(UUID.randomUUID());
+        created.setUserId(userId);
+        created.setStatus(AccountDeletionStatus.PENDING);
+        created.setStep(AccountDeletionStep.values()[0]);
+        try {
+            return accountDeletionRepository.save(created);
+        } catch (DataIntegrityViolationException e) {
+            return accountDeletionRepository.findOpenByUserId(userId).orElseThrow(() -> e);
+        }
+    }
+
+    private void runDeletion(Long id) {
+        AccountDeletion accountDeletion = shardRouter.callOnDirectory(() -> accountDeletionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("AccountDeletion", "id", id)));
+        Long userId = accountDeletion.getUserId();
+        shardRouter.runOnDirectory(() -> userRepository.disable(userId));
+
+        for (int batch = 0; batch < maxBatches; batch++) {
+            AccountDeletionStep step = accountDeletion.getStep();
+            int deleted = deleteChunk(step, userId);
+            accountDeletion.setDeletedRows(accountDeletion.getDeletedRows() + deleted);
+            accountDeletion.setLeaseUntil(leaseUntil());
+
+            boolean stepDone = deleted < batchSize;
+            if (stepDone && step.next() == null) {
+                accountDeletion.setStatus(AccountDeletionStatus.COMPLETED);
+                accountDeletion.setCompletedAt(Instant.now());
+                accountDeletion.setLeaseUntil(null);
+                save(accountDeletion);
+                log.info("Deleted account {}, {} rows", userId, accountDeletion.getDeletedRows());
+                return;
+            }
+            if (stepDone) {
+                accountDeletion.setStep(step.next());
+            }
+            accountDeletion = save(accountDeletion);
+        }
+
+        // Out of batches for this run, free it for the next poll
+        accountDeletion.setLeaseUntil(null);
+        save(accountDeletion);
+    }
+
+    // The user's data goes on their home shard. The last step removes the home
+    // shard copy of their users row, then the directory entry.
+    private int deleteChunk(AccountDeletionStep step, Long userId) {
+        int deleted = shardRouter.callForUser(userId,
+                () -> accountPurgeRepository.deleteChunk(step, userId, batchSize));
+        if (step == AccountDeletionStep.USER && shardRouter.shardFor(userId) != ShardRouter.DIRECTORY) {
+            deleted += shardRouter.callOnDirectory(() -> accountPurgeRepository.deleteChunk(step, userId, batchSize));
+        }
+        return deleted;
+    }
+
+    private AccountDeletion save(AccountDeletion accountDeletion) {
+        return shardRouter.callOnDirectory(() -> accountDeletionRepository.save(accountDeletion));
+    }
+
+    private Instant leaseUntil() {
+        return Instant.now().plus(lease);
+    }
+}
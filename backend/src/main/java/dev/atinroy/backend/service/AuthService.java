@@ -3,59 +3,60 @@ package dev.atinroy.backend.service;
 import dev.atinroy.backend.dto.auth.AuthResponse;
 import dev.atinroy.backend.dto.auth.LoginRequest;
 import dev.atinroy.backend.dto.auth.RegisterRequest;
+import dev.atinroy.backend.config.ShardRouter;
 import dev.atinroy.backend.entity.User;
-import dev.atinroy.backend.entity.UserSettings;
-import dev.atinroy.backend.entity.UserStreak;
 import dev.atinroy.backend.exception.DuplicateResourceException;
 import dev.atinroy.backend.exception.UnauthorizedException;
 import dev.atinroy.backend.repository.UserRepository;
-import dev.atinroy.backend.repository.UserSettingsRepository;
-import dev.atinroy.backend.repository.UserStreakRepository;
 import dev.atinroy.backend.security.JwtUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final UserSettingsRepository userSettingsRepository;
-    private final UserStreakRepository userStreakRepository;
+    private final UserService userService;
+    private final ShardRouter shardRouter;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtUtils;
 
-    @Transactional
+    // The account is created in the user directory, then provisioned on the
+    // user's home shard, see ShardRouter
     public AuthResponse register(RegisterRequest request) {
-        // Check if email already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new DuplicateResourceException("User", "email", request.getEmail());
-        }
-
-        // Check if username already exists
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new DuplicateResourceException("User", "username", request.getUsername());
-        }
+        User savedUser = shardRouter.callOnDirectory(() -> {
+            // Check if email already exists
+            if (userRepository.existsByEmail(request.getEmail())) {
+                throw new DuplicateResourceException("User", "email", request.getEmail());
+            }
 
-        // Create new user
-        User user = new User();
-        user.setEmail(request.getEmail());
-        user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+            // Check if username already exists
+            if (userRepository.existsByUsername(request.getUsername())) {
+                throw new DuplicateResourceException("User", "username", request.getUsername());
+            }
 
-        User savedUser = userRepository.save(user);
+            // Create new user
+            User user = new User();
+            user.setEmail(request.getEmail());
+            user.setUsername(request.getUsername());
+            user.setPassword(passwordEncoder.encode(request.getPassword()));
 
-        // Create default settings for the user
-        UserSettings settings = new UserSettings();
-        settings.setUser(savedUser);
-        userSettingsRepository.save(settings);
+            try {
+                return userRepository.save(user);
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent registration took the email or username after the checks
+                if (userRepository.existsByEmail(request.getEmail())) {
+                    throw new DuplicateResourceException("User", "email", request.getEmail());
+                }
+                throw new DuplicateResourceException("User", "username", request.getUsername());
+            }
+        });
 
-        // Create default streak for the user
-        UserStreak streak = new UserStreak();
-        streak.setUser(savedUser);
-        userStreakRepository.save(streak);
+        // Create the home shard copy, default settings and default streak
+        userService.provisionHomeShard(savedUser);
 
         // Generate JWT token
         String token = jwtUtils.generateToken(savedUser.getUsername(), savedUser.getId());
@@ -68,9 +69,10 @@ public class AuthService {
     }
 
     public AuthResponse login(LoginRequest request) {
-        // Find user by email or username
-        User user = userRepository.findByEmail(request.getEmailOrUsername())
-                .or(() -> userRepository.findByUsername(request.getEmailOrUsername()))
+        // Find user by email or username, accounts being deleted are disabled
+        User user = userService.findByEmail(request.getEmailOrUsername())
+                .or(() -> userService.findByUsername(request.getEmailOrUsername()))
+                .filter(found -> found.getDeletedAt() == null)
                 .orElseThrow(() -> new UnauthorizedException("Invalid credentials"));
 
         // Verify password
@@ -78,6 +80,12 @@ public class AuthService {
             throw new UnauthorizedException("Invalid credentials");
         }
 
+        // Repairs a registration that failed before its home shard was provisioned.
+        // Logins of complete accounts only read, see UserService.isHomeShardProvisioned
+        if (!userService.isHomeShardProvisioned(user.getId())) {
+            userService.provisionHomeShard(user);
+        }
+
         // Generate JWT token
         String token = jwtUtils.generateToken(user.getUsername(), user.getId());
 
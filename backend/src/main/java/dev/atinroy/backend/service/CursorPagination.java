@@ -0,0 +1,69 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.dto.common.CursorPage;
+import dev.atinroy.backend.exception.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+@Component
+public class CursorPagination {
+
+    @Value("${app.pagination.default-page-size}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-page-size}")
+    private int maxPageSize;
+
+    public record Cursor<K>(Long id, K sortKey) {
+    }
+
+    public int resolvePageSize(Integer requestedSize) {
+        if (requestedSize == null) {
+            return defaultPageSize;
+        }
+        if (requestedSize < 1) {
+            throw new ValidationException("Page size must be at least 1");
+        }
+        return Math.min(requestedSize, maxPageSize);
+    }
+
+    // One extra row is fetched to tell whether another page follows
+    public Pageable probe(int pageSize) {
+        return PageRequest.of(0, pageSize + 1);
+    }
+
+    public String encode(Long id, Object sortKey) {
+        String payload = id + ":" + sortKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public <K> Cursor<K> decode(String token, Function<String, K> sortKeyParser) {
+        try {
+            String payload = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = payload.indexOf(':');
+            return new Cursor<>(Long.valueOf(payload.substring(0, separator)),
+                    sortKeyParser.apply(payload.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+
+    public <E, R> CursorPage<R> toPage(List<E> rows, int pageSize, Function<E, String> cursorOf,
+            Function<E, R> mapper) {
+        boolean hasMore = rows.size() > pageSize;
+        List<E> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = hasMore ? cursorOf.apply(pageRows.get(pageRows.size() - 1)) : null;
+        List<R> items = pageRows.stream().map(mapper).toList();
+
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+}
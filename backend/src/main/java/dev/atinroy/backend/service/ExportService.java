@@ -0,0 +1,100 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.dto.export.ExportFormat;
+import dev.atinroy.backend.exception.ValidationException;
+import dev.atinroy.backend.repository.ExportRepository;
+import dev.atinroy.backend.repository.projection.TimeBlockExportRow;
+import dev.atinroy.backend.repository.projection.TodoExportRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private final ExportRepository exportRepository;
+    private final JsonMapper jsonMapper;
+    private final TimeBlockArchiveService timeBlockArchiveService;
+
+    // Rows are written as they come off the cursor, so memory use does not depend
+    // on how much history the user has
+
+    @Transactional(readOnly = true)
+    public void exportTimeBlocks(Long userId, ExportFormat format, LocalDate startDate, LocalDate endDate,
+            Writer writer) {
+        if (format == ExportFormat.CSV) {
+            writeLine(writer, TimeBlockExportRow.CSV_HEADER);
+        }
+
+        LocalDateTime from = startDate != null ? startDate.atStartOfDay() : null;
+        exportRepository.streamTimeBlocks(userId, from,
+                endDate != null ? endDate.plusDays(1).atStartOfDay() : null,
+                timeBlockArchiveService.reachesArchive(from),
+                row -> writeLine(writer, format == ExportFormat.CSV
+                        ? toCsvLine(row.csvValues())
+                        : jsonMapper.writeValueAsString(row)));
+    }
+
+    @Transactional(readOnly = true)
+    public void exportTodos(Long userId, ExportFormat format, LocalDate startDate, LocalDate endDate,
+            Writer writer) {
+        if (format == ExportFormat.CSV) {
+            writeLine(writer, TodoExportRow.CSV_HEADER);
+        }
+
+        ZoneId zone = ZoneId.systemDefault();
+        exportRepository.streamTodos(userId,
+                startDate != null ? startDate.atStartOfDay(zone).toInstant() : null,
+                endDate != null ? endDate.plusDays(1).atStartOfDay(zone).toInstant() : null,
+                row -> writeLine(writer, format == ExportFormat.CSV
+                        ? toCsvLine(row.csvValues())
+                        : jsonMapper.writeValueAsString(row)));
+    }
+
+    // Called before the response starts, errors can no longer be reported once rows are streaming
+    public void validateRange(LocalDate startDate, LocalDate endDate) {
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            throw new ValidationException("endDate must not be before startDate");
+        }
+    }
+
+    // Helper methods
+
+    private void writeLine(Writer writer, String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String toCsvLine(Object[] values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            if (values[i] == null) {
+                continue;
+            }
+            String value = values[i].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,127 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.entity.Tag;
+import dev.atinroy.backend.entity.TimeBlock;
+import dev.atinroy.backend.entity.Todo;
+import dev.atinroy.backend.entity.User;
+import dev.atinroy.backend.exception.ResourceNotFoundException;
+import dev.atinroy.backend.exception.UnauthorizedException;
+import dev.atinroy.backend.exception.ValidationException;
+import dev.atinroy.backend.repository.ArchivedTimeBlockRepository;
+import dev.atinroy.backend.repository.TagRepository;
+import dev.atinroy.backend.repository.TimeBlockRepository;
+import dev.atinroy.backend.repository.TodoRepository;
+import dev.atinroy.backend.repository.UserRepository;
+import dev.atinroy.backend.repository.projection.TagRow;
+import dev.atinroy.backend.repository.projection.TimeBlockRow;
+import dev.atinroy.backend.repository.projection.TodoRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class OwnedResourceLookup {
+
+    private final TimeBlockRepository timeBlockRepository;
+    private final ArchivedTimeBlockRepository archivedTimeBlockRepository;
+    private final TodoRepository todoRepository;
+    private final TagRepository tagRepository;
+    private final UserRepository userRepository;
+
+    // Every lookup is a single query scoped to the owner. The extra existence
+    // check only runs on a miss, to tell "not found" apart from "not yours"
+
+    // Writes only ever see hot blocks. One of the user's archived blocks is found
+    // by reads, so a write to it is refused as read-only rather than a 404
+    public TimeBlock getTimeBlock(Long timeBlockId, Long userId) {
+        return timeBlockRepository.findByIdAndUserId(timeBlockId, userId)
+                .orElseThrow(() -> archivedTimeBlockRepository.existsByIdAndUserId(timeBlockId, userId)
+                        ? new ValidationException("Archived time blocks are read-only")
+                        : notFoundOrNotOwned(timeBlockRepository, timeBlockId, "TimeBlock", "time block"));
+    }
+
+    // Reads fall through to the archive
+    public TimeBlockRow getTimeBlockRow(Long timeBlockId, Long userId) {
+        return timeBlockRepository.findRowByIdAndUserId(timeBlockId, userId)
+                .or(() -> archivedTimeBlockRepository.findRowByIdAndUserId(timeBlockId, userId))
+                .orElseThrow(() -> archivedTimeBlockRepository.existsById(timeBlockId)
+                        ? notFoundOrNotOwned(archivedTimeBlockRepository, timeBlockId, "TimeBlock", "time block")
+                        : notFoundOrNotOwned(timeBlockRepository, timeBlockId, "TimeBlock", "time block"));
+    }
+
+    public Todo getTodo(Long todoId, Long userId) {
+        return todoRepository.findByIdAndUserId(todoId, userId)
+                .orElseThrow(() -> notFoundOrNotOwned(todoRepository, todoId, "Todo", "todo"));
+    }
+
+    public TodoRow getTodoRow(Long todoId, Long userId) {
+        return todoRepository.findRowByIdAndUserId(todoId, userId)
+                .orElseThrow(() -> notFoundOrNotOwned(todoRepository, todoId, "Todo", "todo"));
+    }
+
+    public Tag getTag(Long tagId, Long userId) {
+        return tagRepository.findByIdAndUserId(tagId, userId)
+                .orElseThrow(() -> notFoundOrNotOwned(tagRepository, tagId, "Tag", "tag"));
+    }
+
+    public TagRow getTagRow(Long tagId, Long userId) {
+        return tagRepository.findRowByIdAndUserId(tagId, userId)
+                .orElseThrow(() -> notFoundOrNotOwned(tagRepository, tagId, "Tag", "tag"));
+    }
+
+    // Batch variants for imports, ids that are missing or not owned are simply absent
+
+    public Map<Long, Todo> getTodos(Collection<Long> todoIds, Long userId) {
+        if (todoIds.isEmpty()) {
+            return Map.of();
+        }
+        return todoRepository.findByIdInAndUserId(todoIds, userId).stream()
+                .collect(Collectors.toMap(Todo::getId, Function.identity()));
+    }
+
+    public Map<Long, Tag> getTags(Collection<Long> tagIds, Long userId) {
+        if (tagIds.isEmpty()) {
+            return Map.of();
+        }
+        return tagRepository.findByIdInAndUserId(tagIds, userId).stream()
+                .collect(Collectors.toMap(Tag::getId, Function.identity()));
+    }
+
+    // All or nothing for bulk operations: one IN query, and the first id that is
+    // missing or not owned fails the whole batch
+    public void requireTodos(Collection<Long> todoIds, Long userId) {
+        Set<Long> owned = new HashSet<>(todoRepository.findIdsByIdInAndUserId(todoIds, userId));
+        for (Long todoId : todoIds) {
+            if (!owned.contains(todoId)) {
+                throw notFoundOrNotOwned(todoRepository, todoId, "Todo", "todo");
+            }
+        }
+    }
+
+    public void requireTag(Long tagId, Long userId) {
+        if (!tagRepository.existsByIdAndUserId(tagId, userId)) {
+            throw notFoundOrNotOwned(tagRepository, tagId, "Tag", "tag");
+        }
+    }
+
+    // The authenticated user always exists, so writes only need the foreign key
+    public User getUserReference(Long userId) {
+        return userRepository.getReferenceById(userId);
+    }
+
+    private RuntimeException notFoundOrNotOwned(JpaRepository<?, Long> repository, Long id, String resourceName,
+            String description) {
+        if (repository.existsById(id)) {
+            return new UnauthorizedException("You don't have permission to access this " + description);
+        }
+        return new ResourceNotFoundException(resourceName, "id", id);
+    }
+}
@@ -0,0 +1,214 @@
+package dev.atinroy.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Rank keys for manual ordering, compared as plain strings. There is always a key
+// between two others, so moving an item only rewrites its own key.
+//
+// A key is a base-62 integer followed by an optional fraction. The integer's first
+// character gives its length: 'a' one digit, 'b' two and so on, 'Z', 'Y'... the
+// same for negative ones. Adding to either end steps the integer, which keeps keys
+// short for lists that mostly grow at the ends. Moves between two neighbours take
+// the midpoint of the fractions, about one digit longer every six moves into the
+// same gap; TodoRebalanceService respaces keys once they get long. A fraction
+// never ends in the lowest digit, so there is always room before it.
+public final class RankKeys {
+
+    // Ascending in the "C" collation sort_key uses
+    private static final String DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    private static final int BASE = DIGITS.length();
+
+    private static final char ZERO = DIGITS.charAt(0);
+
+    private static final char MAX_DIGIT = DIGITS.charAt(BASE - 1);
+
+    private static final String SMALLEST_INTEGER = "A" + String.valueOf(ZERO).repeat(26);
+
+    private RankKeys() {
+    }
+
+    // A key after `before` and before `after`; null stands for the start or the
+    // end of the list.
+    public static String between(String before, String after) {
+        if (before != null) {
+            validate(before);
+        }
+        if (after != null) {
+            validate(after);
+        }
+        if (before != null && after != null && before.compareTo(after) >= 0) {
+            throw new IllegalArgumentException("Rank key " + before + " is not before " + after);
+        }
+
+        if (before == null) {
+            if (after == null) {
+                return "a" + ZERO;
+            }
+            String integer = integerPart(after);
+            if (integer.equals(SMALLEST_INTEGER)) {
+                return integer + midpoint("", after.substring(integer.length()));
+            }
+            if (integer.length() < after.length()) {
+                return integer;
+            }
+            return require(decrement(integer));
+        }
+
+        String integer = integerPart(before);
+        String fraction = before.substring(integer.length());
+        if (after == null) {
+            String next = increment(integer);
+            return next != null ? next : integer + midpoint(fraction, null);
+        }
+        if (integer.equals(integerPart(after))) {
+            return integer + midpoint(fraction, after.substring(integer.length()));
+        }
+        String next = require(increment(integer));
+        return next.compareTo(after) < 0 ? next : integer + midpoint(fraction, null);
+    }
+
+    // `count` ascending keys, integers 0 to count - 1: short, and with whole
+    // integer steps of room around each
+    public static List<String> spaced(int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int rank = 0; rank < count; rank++) {
+            int width = 1;
+            for (long capacity = BASE; capacity <= rank; capacity *= BASE) {
+                width++;
+            }
+            keys.add((char) ('a' + width - 1) + encode(rank, width));
+        }
+        return keys;
+    }
+
+    // Helper methods
+
+    private static void validate(String key) {
+        if (key.isEmpty() || key.equals(SMALLEST_INTEGER)) {
+            throw new IllegalArgumentException("Invalid rank key " + key);
+        }
+        String integer = integerPart(key);
+        if (key.length() > integer.length() && key.charAt(key.length() - 1) == ZERO) {
+            throw new IllegalArgumentException("Invalid rank key " + key);
+        }
+    }
+
+    private static String integerPart(String key) {
+        char head = key.charAt(0);
+        int length;
+        if (head >= 'a' && head <= 'z') {
+            length = head - 'a' + 2;
+        } else if (head >= 'A' && head <= 'Z') {
+            length = 'Z' - head + 2;
+        } else {
+            throw new IllegalArgumentException("Invalid rank key " + key);
+        }
+        if (key.length() < length) {
+            throw new IllegalArgumentException("Invalid rank key " + key);
+        }
+        return key.substring(0, length);
+    }
+
+    // The next integer, or null past the largest one
+    private static String increment(String integer) {
+        char head = integer.charAt(0);
+        StringBuilder digits = new StringBuilder(integer.substring(1));
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = DIGITS.indexOf(digits.charAt(i)) + 1;
+            if (digit < BASE) {
+                digits.setCharAt(i, DIGITS.charAt(digit));
+                return head + digits.toString();
+            }
+            digits.setCharAt(i, ZERO);
+        }
+        // Every digit carried over: one digit more, or one less for negatives
+        if (head == 'Z') {
+            return "a" + ZERO;
+        }
+        if (head == 'z') {
+            return null;
+        }
+        char nextHead = (char) (head + 1);
+        if (nextHead > 'a') {
+            digits.append(ZERO);
+        } else {
+            digits.setLength(digits.length() - 1);
+        }
+        return nextHead + digits.toString();
+    }
+
+    // The previous integer, or null past the smallest one
+    private static String decrement(String integer) {
+        char head = integer.charAt(0);
+        StringBuilder digits = new StringBuilder(integer.substring(1));
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = DIGITS.indexOf(digits.charAt(i)) - 1;
+            if (digit >= 0) {
+                digits.setCharAt(i, DIGITS.charAt(digit));
+                return head + digits.toString();
+            }
+            digits.setCharAt(i, MAX_DIGIT);
+        }
+        if (head == 'a') {
+            return "Z" + MAX_DIGIT;
+        }
+        if (head == 'A') {
+            return null;
+        }
+        char previousHead = (char) (head - 1);
+        if (previousHead < 'Z') {
+            digits.append(MAX_DIGIT);
+        } else {
+            digits.setLength(digits.length() - 1);
+        }
+        return previousHead + digits.toString();
+    }
+
+    private static String require(String integer) {
+        if (integer == null) {
+            throw new IllegalStateException("Rank keys exhausted, rebalance first");
+        }
+        return integer;
+    }
+
+    // Midpoint of the fractions `low` and `high`, high null meaning 1
+    private static String midpoint(String low, String high) {
+        if (high != null) {
+            int common = 0;
+            while (common < high.length() && digitAt(low, common) == high.charAt(common)) {
+                common++;
+            }
+            if (common > 0) {
+                return high.substring(0, common)
+                        + midpoint(low.substring(Math.min(common, low.length())), high.substring(common));
+            }
+        }
+
+        int lowDigit = low.isEmpty() ? 0 : DIGITS.indexOf(low.charAt(0));
+        int highDigit = high != null ? DIGITS.indexOf(high.charAt(0)) : BASE;
+        if (highDigit - lowDigit > 1) {
+            return String.valueOf(DIGITS.charAt((lowDigit + highDigit + 1) / 2));
+        }
+        // Adjacent digits: a longer high fraction has room below its first digit,
+        // otherwise continue after the low fraction's first digit
+        if (high != null && high.length() > 1) {
+            return high.substring(0, 1);
+        }
+        return DIGITS.charAt(lowDigit) + midpoint(low.isEmpty() ? "" : low.substring(1), null);
+    }
+
+    private static char digitAt(String key, int index) {
+        return index < key.length() ? key.charAt(index) : ZERO;
+    }
+
+    private static String encode(int value, int width) {
+        char[] digits = new char[width];
+        for (int i = width - 1; i >= 0; i--) {
+            digits[i] = DIGITS.charAt(value % BASE);
+            value /= BASE;
+        }
+        return new String(digits);
+    }
+}
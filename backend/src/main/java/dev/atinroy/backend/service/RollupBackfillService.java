@@ -0,0 +1,39 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.config.ShardRouter;
+import dev.atinroy.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// Rolls up the stats of accounts created before the rollups existed. Runs once in
+// the background, shortly after startup, one transaction per user. Later starts
+// find nobody left; logins do not wait for it, see UserService.isHomeShardProvisioned.
+//
+// The directory holds every users row, so each shard only takes the users it is
+// home to.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RollupBackfillService {
+
+    private final UserRepository userRepository;
+    private final StatsRollupService statsRollupService;
+    private final ShardRouter shardRouter;
+
+    @Scheduled(initialDelayString = "${app.rollup-backfill.initial-delay}")
+    public void backfillMissingRollups() {
+        shardRouter.runOnEachShard(() -> {
+            int shard = shardRouter.currentShard();
+            long rolledUp = 0;
+            for (Long userId : userRepository.findIdsWithoutLifetimeStats()) {
+                if (shardRouter.shardFor(userId) == shard) {
+                    statsRollupService.ensureRolledUp(userId);
+                    rolledUp++;
+                }
+            }
+            log.info("Rolled up the stats of {} users on shard {}", rolledUp, shard);
+        });
+    }
+}
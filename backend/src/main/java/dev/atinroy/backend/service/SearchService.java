@@ -0,0 +1,82 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.dto.common.CursorPage;
+import dev.atinroy.backend.dto.search.SearchHitResponse;
+import dev.atinroy.backend.dto.search.SearchHitType;
+import dev.atinroy.backend.exception.ValidationException;
+import dev.atinroy.backend.mapper.SearchMapper;
+import dev.atinroy.backend.repository.SearchRepository;
+import dev.atinroy.backend.repository.projection.SearchHitRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+
+    // Words as the 'simple' text search parser splits them
+    private static final Pattern TERM = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private final SearchRepository searchRepository;
+    private final SearchMapper searchMapper;
+    private final CursorPagination cursorPagination;
+
+    @Value("${app.search.max-terms}")
+    private int maxTerms;
+
+    // A hit's place in the ranking, as it goes into a cursor
+    record Position(Float rank, String type) {
+
+        static Position parse(String value) {
+            int separator = value.indexOf(',');
+            return new Position(Float.valueOf(value.substring(0, separator)),
+                    SearchHitType.valueOf(value.substring(separator + 1)).name());
+        }
+
+        String format() {
+            return rank + "," + type;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<SearchHitResponse> search(Long userId, String query, String cursor, Integer size) {
+        String tsQuery = toPrefixQuery(query, maxTerms);
+        int pageSize = cursorPagination.resolvePageSize(size);
+
+        List<SearchHitRow> hits;
+        if (cursor == null) {
+            hits = searchRepository.findFirstPage(userId, tsQuery, cursorPagination.probe(pageSize));
+        } else {
+            CursorPagination.Cursor<Position> after = cursorPagination.decode(cursor, Position::parse);
+            hits = searchRepository.findPageAfter(userId, tsQuery, after.sortKey().rank(), after.sortKey().type(),
+                    after.id(), cursorPagination.probe(pageSize));
+        }
+
+        return cursorPagination.toPage(hits, pageSize,
+                hit -> cursorPagination.encode(hit.id(), new Position(hit.rank(), hit.type()).format()),
+                searchMapper::toResponse);
+    }
+
+    // Every word must match, each as a prefix, so results show up while the last
+    // word is still being typed. Only letters and digits make it into the query,
+    // which leaves no tsquery operators to inject.
+    static String toPrefixQuery(String query, int maxTerms) {
+        List<String> terms = TERM.matcher(query.toLowerCase(Locale.ROOT)).results()
+                .map(MatchResult::group)
+                .limit(maxTerms)
+                .map(term -> term + ":*")
+                .collect(Collectors.toList());
+        if (terms.isEmpty()) {
+            throw new ValidationException("Search query must contain a letter or digit");
+        }
+        return String.join(" & ", terms);
+    }
+}
@@ -0,0 +1,264 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.entity.BlockPurpose;
+import dev.atinroy.backend.entity.TimeBlock;
+import dev.atinroy.backend.entity.User;
+import dev.atinroy.backend.entity.UserDailyStats;
+import dev.atinroy.backend.entity.UserLifetimeStats;
+import dev.atinroy.backend.repository.ArchivedTimeBlockRepository;
+import dev.atinroy.backend.repository.TimeBlockRepository;
+import dev.atinroy.backend.repository.UserDailyStatsRepository;
+import dev.atinroy.backend.repository.UserLifetimeStatsRepository;
+import dev.atinroy.backend.repository.UserRepository;
+import dev.atinroy.backend.repository.projection.DailyBlockTotals;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class StatsRollupService {
+
+    private final UserDailyStatsRepository userDailyStatsRepository;
+    private final UserLifetimeStatsRepository userLifetimeStatsRepository;
+    private final TimeBlockRepository timeBlockRepository;
+    private final ArchivedTimeBlockRepository archivedTimeBlockRepository;
+    private final UserRepository userRepository;
+
+    // Both rollups are adjusted incrementally as blocks end or are deleted. A user
+    // without a lifetime row has never been rolled up, so their first write
+    // rebuilds both rollups from the full time block history instead. Accounts get
+    // their rollup when their home shard is provisioned, see ensureRolledUp.
+    //
+    // Every write locks the user's lifetime row before it reads either rollup, so
+    // concurrent ends, deletes and imports of one user apply one after the other
+    // and none of them starts from counters another is about to change.
+
+    // Users that have not been rolled up yet are aggregated per day straight from
+    // their time blocks, so a read never has to rebuild the rollup first
+    @Transactional(readOnly = true)
+    public List<DailyBlockTotals> getDailyTotals(Long userId, LocalDate startDate, LocalDate endDate) {
+        if (userLifetimeStatsRepository.existsByUserId(userId)) {
+            return userDailyStatsRepository.getTotalsByUserIdAndActivityDateBetween(userId, startDate, endDate);
+        }
+        return timeBlockRepository.getDailyTotalsByUserIdAndStartedAtInRange(userId, startDate.atStartOfDay(),
+                endDate.plusDays(1).atStartOfDay());
+    }
+
+    // Read-only, so it may run on a replica: a user not rolled up yet gets totals
+    // summed from their time blocks without storing them
+    @Transactional(readOnly = true)
+    public UserLifetimeStats getLifetimeStats(Long userId) {
+        return userLifetimeStatsRepository.findByUserId(userId)
+                .orElseGet(() -> summarize(newLifetimeStats(userRepository.getReferenceById(userId)),
+                        aggregateDays(userId)));
+    }
+
+    @Transactional
+    public void ensureRolledUp(Long userId) {
+        if (!userLifetimeStatsRepository.existsByUserId(userId)) {
+            rebuild(userId);
+        }
+    }
+
+    @Transactional
+    public void recordTimeBlockEnded(TimeBlock timeBlock) {
+        apply(timeBlock, 1);
+    }
+
+    // Batch form for imports: every touched day row is read and written once,
+    // along with a single lifetime update
+    @Transactional
+    public void recordTimeBlocksEnded(Long userId, List<TimeBlock> timeBlocks) {
+        if (timeBlocks.isEmpty()) {
+            return;
+        }
+
+        Optional<UserLifetimeStats> lockedLifetimeStats = lockRollup(userId);
+        if (lockedLifetimeStats.isEmpty()) {
+            return;
+        }
+        UserLifetimeStats lifetimeStats = lockedLifetimeStats.get();
+        User user = userRepository.getReferenceById(userId);
+
+        Set<LocalDate> activityDates = timeBlocks.stream()
+                .map(timeBlock -> timeBlock.getStartedAt().toLocalDate())
+                .collect(Collectors.toSet());
+        Map<LocalDate, UserDailyStats> days = userDailyStatsRepository
+                .findByUserIdAndActivityDateIn(userId, activityDates).stream()
+                .collect(Collectors.toMap(UserDailyStats::getActivityDate, Function.identity()));
+        Map<LocalDate, Long> sessionsBefore = new HashMap<>();
+        for (LocalDate activityDate : activityDates) {
+            UserDailyStats day = days.computeIfAbsent(activityDate, date -> newDailyStats(user, date));
+            sessionsBefore.put(activityDate, day.getSessionCount());
+        }
+
+        for (TimeBlock timeBlock : timeBlocks) {
+            long duration = timeBlock.getActualDurationSeconds() != null ? timeBlock.getActualDurationSeconds() : 0L;
+            boolean focus = timeBlock.getPurpose() == BlockPurpose.FOCUS;
+            days.get(timeBlock.getStartedAt().toLocalDate()).add(
+                    focus ? duration : 0L,
+                    focus ? 0L : duration,
+                    focus ? 1L : 0L,
+                    Boolean.TRUE.equals(timeBlock.getCompleted()) ? 1L : 0L);
+            if (focus) {
+                lifetimeStats.setTotalFocusSeconds(lifetimeStats.getTotalFocusSeconds() + duration);
+                lifetimeStats.setSessionCount(lifetimeStats.getSessionCount() + 1);
+            }
+        }
+
+        for (UserDailyStats day : days.values()) {
+            if (sessionsBefore.get(day.getActivityDate()) == 0 && day.getSessionCount() > 0) {
+                lifetimeStats.setActiveDays(lifetimeStats.getActiveDays() + 1);
+                if (lifetimeStats.getLastActiveDate() == null
+                        || day.getActivityDate().isAfter(lifetimeStats.getLastActiveDate())) {
+                    lifetimeStats.setLastActiveDate(day.getActivityDate());
+                }
+            }
+        }
+
+        userDailyStatsRepository.saveAll(days.values());
+        userLifetimeStatsRepository.save(lifetimeStats);
+    }
+
+    // Must be called after the block has been deleted so a rebuild does not count it
+    @Transactional
+    public void recordTimeBlockDeleted(TimeBlock timeBlock) {
+        if (timeBlock.getEndedAt() == null) {
+            return;
+        }
+        apply(timeBlock, -1);
+    }
+
+    @Transactional
+    public UserLifetimeStats rebuild(Long userId) {
+        userLifetimeStatsRepository.insertIfMissing(userId);
+        UserLifetimeStats lifetimeStats = userLifetimeStatsRepository.findByUserIdForUpdate(userId).orElseThrow();
+
+        userDailyStatsRepository.deleteAllByUserId(userId);
+        List<UserDailyStats> dailyStats = aggregateDays(userId);
+        userDailyStatsRepository.saveAll(dailyStats);
+
+        return userLifetimeStatsRepository.save(summarize(lifetimeStats, dailyStats));
+    }
+
+    // Helper methods
+
+    // The user's locked lifetime row, or empty if the user had no rollup yet and
+    // it has just been rebuilt, which already counts this transaction's changes
+    private Optional<UserLifetimeStats> lockRollup(Long userId) {
+        if (userLifetimeStatsRepository.insertIfMissing(userId) == 1) {
+            rebuild(userId);
+            return Optional.empty();
+        }
+        return userLifetimeStatsRepository.findByUserIdForUpdate(userId);
+    }
+
+    private void apply(TimeBlock timeBlock, int sign) {
+        Long userId = timeBlock.getUser().getId();
+
+        Optional<UserLifetimeStats> lockedLifetimeStats = lockRollup(userId);
+        if (lockedLifetimeStats.isEmpty()) {
+            return;
+        }
+        UserLifetimeStats lifetimeStats = lockedLifetimeStats.get();
+
+        LocalDate activityDate = timeBlock.getStartedAt().toLocalDate();
+        UserDailyStats dailyStats = userDailyStatsRepository.findByUserIdAndActivityDate(userId, activityDate)
+                .orElseGet(() -> newDailyStats(timeBlock.getUser(), activityDate));
+
+        long duration = timeBlock.getActualDurationSeconds() != null ? timeBlock.getActualDurationSeconds() : 0L;
+        boolean focus = timeBlock.getPurpose() == BlockPurpose.FOCUS;
+        long focusDelta = sign * (focus ? duration : 0L);
+        long sessionDelta = sign * (focus ? 1L : 0L);
+
+        long sessionsBefore = dailyStats.getSessionCount();
+        dailyStats.add(
+                focusDelta,
+                sign * (focus ? 0L : duration),
+                sessionDelta,
+                sign * (Boolean.TRUE.equals(timeBlock.getCompleted()) ? 1L : 0L));
+        userDailyStatsRepository.save(dailyStats);
+
+        lifetimeStats.setTotalFocusSeconds(lifetimeStats.getTotalFocusSeconds() + focusDelta);
+        lifetimeStats.setSessionCount(lifetimeStats.getSessionCount() + sessionDelta);
+
+        // The day became active with its first focus session
+        if (sessionsBefore == 0 && dailyStats.getSessionCount() > 0) {
+            lifetimeStats.setActiveDays(lifetimeStats.getActiveDays() + 1);
+            if (lifetimeStats.getLastActiveDate() == null || activityDate.isAfter(lifetimeStats.getLastActiveDate())) {
+                lifetimeStats.setLastActiveDate(activityDate);
+            }
+        }
+
+        // The day lost its last focus session
+        if (sessionsBefore > 0 && dailyStats.getSessionCount() == 0) {
+            lifetimeStats.setActiveDays(lifetimeStats.getActiveDays() - 1);
+            if (activityDate.equals(lifetimeStats.getLastActiveDate())) {
+                lifetimeStats.setLastActiveDate(userDailyStatsRepository.findLastActiveDate(userId));
+            }
+        }
+
+        userLifetimeStatsRepository.save(lifetimeStats);
+    }
+
+    // Daily rollup rows built from the full history, not yet saved. Archived blocks
+    // count too; a day can have blocks on both sides when only some of them had
+    // ended by the time the rest were archived
+    private List<UserDailyStats> aggregateDays(Long userId) {
+        User user = userRepository.getReferenceById(userId);
+        Map<LocalDate, UserDailyStats> days = new TreeMap<>();
+        for (List<DailyBlockTotals> source : List.of(timeBlockRepository.getDailyTotalsByUserId(userId),
+                archivedTimeBlockRepository.getDailyTotalsByUserId(userId))) {
+            for (DailyBlockTotals totals : source) {
+                days.computeIfAbsent(totals.activityDate(), date -> newDailyStats(user, date))
+                        .add(totals.focusSeconds(), totals.breakSeconds(), totals.sessionCount(),
+                                totals.completedTimers());
+            }
+        }
+        return List.copyOf(days.values());
+    }
+
+    private UserLifetimeStats summarize(UserLifetimeStats lifetimeStats, List<UserDailyStats> dailyStats) {
+        lifetimeStats.setTotalFocusSeconds(0L);
+        lifetimeStats.setSessionCount(0L);
+        lifetimeStats.setActiveDays(0L);
+        lifetimeStats.setLastActiveDate(null);
+
+        for (UserDailyStats day : dailyStats) {
+            lifetimeStats.setTotalFocusSeconds(lifetimeStats.getTotalFocusSeconds() + day.getFocusSeconds());
+            lifetimeStats.setSessionCount(lifetimeStats.getSessionCount() + day.getSessionCount());
+            if (day.getSessionCount() > 0) {
+                lifetimeStats.setActiveDays(lifetimeStats.getActiveDays() + 1);
+                if (lifetimeStats.getLastActiveDate() == null
+                        || day.getActivityDate().isAfter(lifetimeStats.getLastActiveDate())) {
+                    lifetimeStats.setLastActiveDate(day.getActivityDate());
+                }
+            }
+        }
+        return lifetimeStats;
+    }
+
+    private UserDailyStats newDailyStats(User user, LocalDate activityDate) {
+        UserDailyStats dailyStats = new UserDailyStats();
+        dailyStats.setUser(user);
+        dailyStats.setActivityDate(activityDate);
+        return dailyStats;
+    }
+
+    private UserLifetimeStats newLifetimeStats(User user) {
+        UserLifetimeStats lifetimeStats = new UserLifetimeStats();
+        lifetimeStats.setUser(user);
+        return lifetimeStats;
+    }
+}
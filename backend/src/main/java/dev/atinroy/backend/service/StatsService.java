@@ -1,16 +1,19 @@
 package dev.atinroy.backend.service;
 
 import dev.atinroy.backend.dto.stats.*;
-import dev.atinroy.backend.entity.BlockPurpose;
-import dev.atinroy.backend.entity.TimeBlock;
-import dev.atinroy.backend.repository.TagRepository;
+import dev.atinroy.backend.entity.UserLifetimeStats;
+import dev.atinroy.backend.exception.ValidationException;
+import dev.atinroy.backend.repository.ArchivedTimeBlockRepository;
 import dev.atinroy.backend.repository.TimeBlockRepository;
+import dev.atinroy.backend.repository.projection.DailyBlockTotals;
+import dev.atinroy.backend.repository.projection.StatsBucket;
+import dev.atinroy.backend.repository.projection.TagFocusTime;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -19,87 +22,67 @@ import java.util.stream.Collectors;
 public class StatsService {
 
     private final TimeBlockRepository timeBlockRepository;
-    private final TagRepository tagRepository;
+    private final ArchivedTimeBlockRepository archivedTimeBlockRepository;
+    private final TimeBlockArchiveService timeBlockArchiveService;
     private final UserStreakService userStreakService;
+    private final StatsRollupService statsRollupService;
 
+    @Transactional(readOnly = true)
     public DailyStatsResponse getDailyStats(Long userId, LocalDate date) {
-        List<TimeBlock> timeBlocks = timeBlockRepository.findByUserIdAndDate(userId, date);
-
-        // Calculate focus time
-        long focusTimeSeconds = timeBlocks.stream()
-                .filter(tb -> tb.getPurpose() == BlockPurpose.FOCUS && tb.getActualDurationSeconds() != null)
-                .mapToLong(TimeBlock::getActualDurationSeconds)
-                .sum();
-
-        // Calculate break time
-        long breakTimeSeconds = timeBlocks.stream()
-                .filter(tb -> (tb.getPurpose() == BlockPurpose.SHORT_BREAK ||
-                        tb.getPurpose() == BlockPurpose.LONG_BREAK) &&
-                        tb.getActualDurationSeconds() != null)
-                .mapToLong(TimeBlock::getActualDurationSeconds)
-                .sum();
-
-        // Count focus sessions
-        long sessionCount = timeBlocks.stream()
-                .filter(tb -> tb.getPurpose() == BlockPurpose.FOCUS && tb.getEndedAt() != null)
-                .count();
+        // Totals come from the daily aggregate, the timeline is projected straight from the blocks
+        Optional<DailyBlockTotals> dailyTotals = statsRollupService.getDailyTotals(userId, date, date).stream()
+                .findFirst();
+        long focusTimeSeconds = dailyTotals.map(DailyBlockTotals::focusSeconds).orElse(0L);
+        long breakTimeSeconds = dailyTotals.map(DailyBlockTotals::breakSeconds).orElse(0L);
+        long sessionCount = dailyTotals.map(DailyBlockTotals::sessionCount).orElse(0L);
 
         // Get tag breakdown
         List<TagTimeBreakdown> tagBreakdown = getTagBreakdownForDate(userId, date);
 
-        // Create timeline
-        List<TimeBlockSummary> timeline = timeBlocks.stream()
-                .filter(tb -> tb.getEndedAt() != null)
-                .map(this::mapToTimeBlockSummary)
-                .sorted(Comparator.comparing(TimeBlockSummary::getStartedAt))
-                .collect(Collectors.toList());
+        // Create timeline, days past the hot window may be partly or fully archived
+        List<TimeBlockSummary> timeline = timeBlockRepository.findTimelineByUserIdAndDate(userId, date);
+        LocalDateTime from = date.atStartOfDay();
+        if (timeBlockArchiveService.reachesArchive(from)) {
+            timeline = new ArrayList<>(timeline);
+            timeline.addAll(archivedTimeBlockRepository.findTimelineByUserIdAndStartedAtInRange(userId, from,
+                    from.plusDays(1)));
+            timeline.sort(Comparator.comparing(TimeBlockSummary::getStartedAt));
+        }
 
         return new DailyStatsResponse(focusTimeSeconds, breakTimeSeconds, sessionCount, tagBreakdown, timeline);
     }
 
+    @Transactional(readOnly = true)
     public PeriodStatsResponse getPeriodStats(Long userId, LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
+        // At most one aggregated row per day in the range
+        return foldPeriodStats(startDate, endDate, statsRollupService.getDailyTotals(userId, startDate, endDate));
+    }
 
-        List<TimeBlock> timeBlocks = timeBlockRepository.findByUserIdAndDateRange(userId, startDateTime, endDateTime);
+    static PeriodStatsResponse foldPeriodStats(LocalDate startDate, LocalDate endDate, List<DailyBlockTotals> days) {
+        long totalFocusTimeSeconds = 0L;
+        long totalSessions = 0L;
+        long activeDays = 0L;
+        LocalDate bestDay = null;
+        Long bestDayFocusTime = 0L;
 
-        // Calculate total focus time
-        long totalFocusTimeSeconds = timeBlocks.stream()
-                .filter(tb -> tb.getPurpose() == BlockPurpose.FOCUS && tb.getActualDurationSeconds() != null)
-                .mapToLong(TimeBlock::getActualDurationSeconds)
-                .sum();
+        for (DailyBlockTotals day : days) {
+            totalFocusTimeSeconds += day.focusSeconds();
+            totalSessions += day.sessionCount();
 
-        // Count total sessions
-        long totalSessions = timeBlocks.stream()
-                .filter(tb -> tb.getPurpose() == BlockPurpose.FOCUS && tb.getEndedAt() != null)
-                .count();
+            // Active days are days with at least one completed focus session
+            if (day.sessionCount() > 0) {
+                activeDays++;
+            }
 
-        // Count active days (days with at least one completed focus session)
-        long activeDays = timeBlocks.stream()
-                .filter(tb -> tb.getPurpose() == BlockPurpose.FOCUS && tb.getEndedAt() != null)
-                .map(tb -> tb.getStartedAt().toLocalDate())
-                .distinct()
-                .count();
+            if (day.focusSeconds() > bestDayFocusTime) {
+                bestDay = day.activityDate();
+                bestDayFocusTime = day.focusSeconds();
+            }
+        }
 
         // Calculate average session duration
         Double averageSessionDuration = totalSessions > 0 ? (double) totalFocusTimeSeconds / totalSessions : 0.0;
 
-        // Find best day
-        Map<LocalDate, Long> dailyFocusTime = timeBlocks.stream()
-                .filter(tb -> tb.getPurpose() == BlockPurpose.FOCUS && tb.getActualDurationSeconds() != null)
-                .collect(Collectors.groupingBy(
-                        tb -> tb.getStartedAt().toLocalDate(),
-                        Collectors.summingLong(TimeBlock::getActualDurationSeconds)));
-
-        LocalDate bestDay = null;
-        Long bestDayFocusTime = 0L;
-        for (Map.Entry<LocalDate, Long> entry : dailyFocusTime.entrySet()) {
-            if (entry.getValue() > bestDayFocusTime) {
-                bestDay = entry.getKey();
-                bestDayFocusTime = entry.getValue();
-            }
-        }
-
         return new PeriodStatsResponse(
                 startDate,
                 endDate,
@@ -111,68 +94,124 @@ public class StatsService {
                 bestDayFocusTime);
     }
 
+    @Transactional(readOnly = true)
     public LifetimeStatsResponse getLifetimeStats(Long userId) {
-        Long totalFocusTimeSeconds = timeBlockRepository.getTotalFocusTimeByUserId(userId);
-        Long totalSessions = timeBlockRepository.countFocusSessionsByUserId(userId);
-
-        // Get total active days
-        List<LocalDate> activeDates = timeBlockRepository.getDistinctFocusDates(userId);
-        long totalActiveDays = activeDates.size();
-
-        // Get average session duration
-        Double averageSessionDuration = timeBlockRepository.getAverageFocusSessionDuration(userId);
-        if (averageSessionDuration == null) {
-            averageSessionDuration = 0.0;
-        }
+        UserLifetimeStats lifetimeStats = statsRollupService.getLifetimeStats(userId);
 
         return new LifetimeStatsResponse(
-                totalFocusTimeSeconds,
-                totalSessions,
-                totalActiveDays,
-                averageSessionDuration);
+                lifetimeStats.getTotalFocusSeconds(),
+                lifetimeStats.getSessionCount(),
+                lifetimeStats.getActiveDays(),
+                lifetimeStats.getAverageSessionDurationSeconds());
     }
 
+    @Transactional(readOnly = true)
     public List<TagTimeBreakdown> getTagBreakdown(Long userId) {
-        List<Object[]> results = timeBlockRepository.getFocusTimeByTag(userId);
-        return results.stream()
-                .map(this::mapToTagTimeBreakdown)
-                .collect(Collectors.toList());
+        return mergeTagFocusTimes(timeBlockRepository.getFocusTimeByTag(userId),
+                archivedTimeBlockRepository.getFocusTimeByTag(userId));
     }
 
+    @Transactional(readOnly = true)
     public List<TagTimeBreakdown> getTagBreakdownForDate(Long userId, LocalDate date) {
-        List<Object[]> results = timeBlockRepository.getFocusTimeByTagAndDate(userId, date);
-        return results.stream()
-                .map(this::mapToTagTimeBreakdown)
-                .collect(Collectors.toList());
+        return getTagBreakdownForPeriod(userId, date, date);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TagTimeBreakdown> getTagBreakdownForPeriod(Long userId, LocalDate startDate, LocalDate endDate) {
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime until = endDate.plusDays(1).atStartOfDay();
+        List<TagFocusTime> hot = timeBlockRepository.getFocusTimeByTagAndDateRange(userId, from, until);
+        if (!timeBlockArchiveService.reachesArchive(from)) {
+            return mergeTagFocusTimes(hot, List.of());
+        }
+        return mergeTagFocusTimes(hot, archivedTimeBlockRepository.getFocusTimeByTagAndDateRange(userId, from, until));
     }
 
+    @Transactional(readOnly = true)
+    public StatsQueryResponse queryStats(Long userId, StatsQuery query) {
+        if (query.getStartDate() == null || query.getEndDate() == null) {
+            throw new ValidationException("startDate and endDate are required");
+        }
+        if (query.getEndDate().isBefore(query.getStartDate())) {
+            throw new ValidationException("endDate must not be before startDate");
+        }
+
+        Set<StatsDimension> dimensions = query.getGroupBy().isEmpty()
+                ? EnumSet.noneOf(StatsDimension.class)
+                : EnumSet.copyOf(query.getGroupBy());
+        long timeBuckets = dimensions.stream()
+                .filter(d -> d == StatsDimension.DAY || d == StatsDimension.WEEK || d == StatsDimension.MONTH)
+                .count();
+        if (timeBuckets > 1) {
+            throw new ValidationException("Only one of DAY, WEEK or MONTH can be grouped on");
+        }
+
+        LocalDateTime from = query.getStartDate().atStartOfDay();
+        List<StatsBucket> buckets = timeBlockRepository.aggregateStats(userId, from,
+                query.getEndDate().plusDays(1).atStartOfDay(), dimensions, timeBlockArchiveService.reachesArchive(from));
+
+        List<StatsQueryRow> rows = new ArrayList<>();
+        StatsQueryRow totals = null;
+        for (StatsBucket bucket : buckets) {
+            if (bucket.total()) {
+                totals = mapToStatsQueryRow(bucket);
+            } else {
+                rows.add(mapToStatsQueryRow(bucket));
+            }
+        }
+
+        return new StatsQueryResponse(query.getStartDate(), query.getEndDate(), new ArrayList<>(dimensions), rows,
+                totals);
+    }
+
+    @Transactional(readOnly = true)
     public StreakResponse getStreak(Long userId) {
         return userStreakService.getStreakByUser(userId);
     }
 
     // Helper methods
 
-    private TimeBlockSummary mapToTimeBlockSummary(TimeBlock timeBlock) {
-        return new TimeBlockSummary(
-                timeBlock.getId(),
-                timeBlock.getPurpose(),
-                timeBlock.getStartedAt(),
-                timeBlock.getEndedAt(),
-                timeBlock.getActualDurationSeconds(),
-                timeBlock.getTag() != null ? timeBlock.getTag().getLabel() : null,
-                timeBlock.getTodo() != null ? timeBlock.getTodo().getTitle() : null);
+    // A tag can have focus time in both tiers, its sums are added up
+    private List<TagTimeBreakdown> mergeTagFocusTimes(List<TagFocusTime> hot, List<TagFocusTime> archived) {
+        Map<Long, TagFocusTime> byTag = new LinkedHashMap<>();
+        for (TagFocusTime tagFocusTime : hot) {
+            byTag.put(tagFocusTime.tagId(), tagFocusTime);
+        }
+        for (TagFocusTime tagFocusTime : archived) {
+            byTag.merge(tagFocusTime.tagId(), tagFocusTime, (a, b) -> new TagFocusTime(a.tagId(), a.label(),
+                    a.hexColor(), a.timeSeconds() + b.timeSeconds()));
+        }
+        return byTag.values().stream()
+                .map(this::mapToTagTimeBreakdown)
+                .collect(Collectors.toList());
     }
 
-    private TagTimeBreakdown mapToTagTimeBreakdown(Object[] result) {
-        Long tagId = ((Number) result[0]).longValue();
-        String tagLabel = (String) result[1];
-        Long timeSeconds = ((Number) result[2]).longValue();
-
-        // Get tag color from repository
-        String hexColor = tagRepository.findById(tagId)
-                .map(tag -> tag.getHexColor())
-                .orElse("000000");
+    private TagTimeBreakdown mapToTagTimeBreakdown(TagFocusTime tagFocusTime) {
+        return new TagTimeBreakdown(
+                tagFocusTime.tagId(),
+                tagFocusTime.label(),
+                tagFocusTime.hexColor(),
+                tagFocusTime.timeSeconds());
+    }
 
-        return new TagTimeBreakdown(tagId, tagLabel, hexColor, timeSeconds);
+    private StatsQueryRow mapToStatsQueryRow(StatsBucket bucket) {
+        Double completionRate = bucket.timerBlocks() > 0
+                ? (double) bucket.completedTimers() / bucket.timerBlocks()
+                : null;
+        return new StatsQueryRow(
+                bucket.tagId(),
+                bucket.tagLabel(),
+                bucket.tagHexColor(),
+                bucket.todoId(),
+                bucket.todoTitle(),
+                bucket.purpose(),
+                bucket.periodStart(),
+                bucket.hourOfDay(),
+                bucket.focusSeconds(),
+                bucket.breakSeconds(),
+                bucket.focusSessions(),
+                bucket.timerBlocks(),
+                bucket.completedTimers(),
+                completionRate);
     }
 }
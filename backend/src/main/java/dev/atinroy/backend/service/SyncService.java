@@ -0,0 +1,89 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.dto.sync.SyncResponse;
+import dev.atinroy.backend.dto.timeblock.TimeBlockResponse;
+import dev.atinroy.backend.mapper.TagMapper;
+import dev.atinroy.backend.mapper.TimeBlockMapper;
+import dev.atinroy.backend.mapper.TodoMapper;
+import dev.atinroy.backend.mapper.UserSettingsMapper;
+import dev.atinroy.backend.repository.ArchivedTimeBlockRepository;
+import dev.atinroy.backend.repository.TagRepository;
+import dev.atinroy.backend.repository.TimeBlockRepository;
+import dev.atinroy.backend.repository.TodoRepository;
+import dev.atinroy.backend.repository.UserSettingsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class SyncService {
+
+    private final TodoRepository todoRepository;
+    private final TagRepository tagRepository;
+    private final TimeBlockRepository timeBlockRepository;
+    private final ArchivedTimeBlockRepository archivedTimeBlockRepository;
+    private final UserSettingsRepository userSettingsRepository;
+    private final TodoMapper todoMapper;
+    private final TagMapper tagMapper;
+    private final TimeBlockMapper timeBlockMapper;
+    private final UserSettingsMapper userSettingsMapper;
+    private final TombstonePurgeService tombstonePurgeService;
+
+    @Value("${app.sync.overlap}")
+    private Duration overlap;
+
+    // The watermark is the server clock when the sync starts. Writes that were still
+    // in flight at that moment can commit with an earlier updatedAt, so every sync
+    // re-reads a short overlap window before the watermark. Clients apply changes
+    // as upserts, so seeing a row twice is harmless.
+    //
+    // A client that has been away longer than the tombstone retention may have
+    // missed purged deletions, so it gets everything with reset set and replaces
+    // its local state instead of merging. Archived blocks come along with the hot
+    // ones: archiving keeps a block's updatedAt, and a tag merge that retags
+    // archived blocks moves it.
+    //
+    // Not read-only, so it stays on the primary: the watermark is the primary's
+    // clock, and a lagging replica would hand out changes older than it claims.
+    @Transactional
+    public SyncResponse getChanges(Long userId, Instant since) {
+        Instant watermark = Instant.now();
+        boolean reset = since == null || since.isBefore(tombstonePurgeService.getRetentionCutoff());
+        Instant from = reset ? Instant.EPOCH : since.minus(overlap);
+
+        return new SyncResponse(
+                watermark,
+                reset,
+                todoRepository.findRowsByUserIdUpdatedAfter(userId, from).stream()
+                        .map(todoMapper::toResponse)
+                        .collect(Collectors.toList()),
+                tagRepository.findRowsByUserIdUpdatedAfter(userId, from).stream()
+                        .map(tagMapper::toResponse)
+                        .collect(Collectors.toList()),
+                getTimeBlocks(userId, from),
+                userSettingsRepository.findByUserId(userId)
+                        .filter(settings -> settings.getUpdatedAt().isAfter(from))
+                        .map(userSettingsMapper::toResponse)
+                        .orElse(null),
+                reset ? List.of() : todoRepository.findDeletedIdsByUserIdUpdatedAfter(userId, from),
+                reset ? List.of() : tagRepository.findDeletedIdsByUserIdUpdatedAfter(userId, from),
+                reset ? List.of() : timeBlockRepository.findDeletedIdsByUserIdUpdatedAfter(userId, from));
+    }
+
+    // Helper methods
+
+    private List<TimeBlockResponse> getTimeBlocks(Long userId, Instant from) {
+        return Stream.concat(timeBlockRepository.findRowsByUserIdUpdatedAfter(userId, from).stream(),
+                        archivedTimeBlockRepository.findRowsByUserIdUpdatedAfter(userId, from).stream())
+                .map(timeBlockMapper::toResponse)
+                .collect(Collectors.toList());
+    }
+}
@@ -1,17 +1,19 @@
 package dev.atinroy.backend.service;
 
+import dev.atinroy.backend.dto.common.CursorPage;
+import dev.atinroy.backend.dto.tag.TagMergeResponse;
 import dev.atinroy.backend.dto.tag.TagRequest;
 import dev.atinroy.backend.dto.tag.TagResponse;
 import dev.atinroy.backend.entity.Tag;
 import dev.atinroy.backend.entity.User;
 import dev.atinroy.backend.exception.DuplicateResourceException;
-import dev.atinroy.backend.exception.ResourceNotFoundException;
-import dev.atinroy.backend.exception.UnauthorizedException;
 import dev.atinroy.backend.exception.ValidationException;
 import dev.atinroy.backend.mapper.TagMapper;
+import dev.atinroy.backend.repository.ArchivedTimeBlockRepository;
 import dev.atinroy.backend.repository.TagRepository;
 import dev.atinroy.backend.repository.TimeBlockRepository;
 import dev.atinroy.backend.repository.TodoRepository;
+import dev.atinroy.backend.repository.projection.TagRow;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,23 +28,44 @@ public class TagService {
     private final TagRepository tagRepository;
     private final TodoRepository todoRepository;
     private final TimeBlockRepository timeBlockRepository;
-    private final UserService userService;
+    private final ArchivedTimeBlockRepository archivedTimeBlockRepository;
+    private final OwnedResourceLookup ownedResourceLookup;
     private final TagMapper tagMapper;
+    private final CursorPagination cursorPagination;
 
+    @Transactional(readOnly = true)
     public List<TagResponse> getAllTagsByUser(Long userId) {
-        return tagRepository.findByUserId(userId).stream()
+        return tagRepository.findRowsByUserId(userId).stream()
                 .map(tagMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<TagResponse> getTagPage(Long userId, String cursor, Integer size) {
+        int pageSize = cursorPagination.resolvePageSize(size);
+
+        List<TagRow> tags;
+        if (cursor == null) {
+            tags = tagRepository.findFirstPageByUserId(userId, cursorPagination.probe(pageSize));
+        } else {
+            CursorPagination.Cursor<String> after = cursorPagination.decode(cursor, label -> label);
+            tags = tagRepository.findPageByUserIdAfter(userId, after.sortKey(), after.id(),
+                    cursorPagination.probe(pageSize));
+        }
+
+        return cursorPagination.toPage(tags, pageSize,
+                tag -> cursorPagination.encode(tag.id(), tag.label()),
+                tagMapper::toResponse);
+    }
+
+    @Transactional(readOnly = true)
     public TagResponse getTagById(Long tagId, Long userId) {
-        Tag tag = getTagAndValidateOwnership(tagId, userId);
-        return tagMapper.toResponse(tag);
+        return tagMapper.toResponse(ownedResourceLookup.getTagRow(tagId, userId));
     }
 
     @Transactional
     public TagResponse createTag(TagRequest request, Long userId) {
-        User user = userService.getUserById(userId);
+        User user = ownedResourceLookup.getUserReference(userId);
 
         // Check if tag with same label already exists for this user
         if (tagRepository.existsByUserIdAndLabel(userId, request.getLabel())) {
@@ -58,7 +81,7 @@ public class TagService {
 
     @Transactional
     public TagResponse updateTag(Long tagId, TagRequest request, Long userId) {
-        Tag tag = getTagAndValidateOwnership(tagId, userId);
+        Tag tag = ownedResourceLookup.getTag(tagId, userId);
 
         // Check if new label conflicts with existing tags (excluding current tag)
         if (!tag.getLabel().equals(request.getLabel()) &&
@@ -73,17 +96,18 @@ public class TagService {
 
     @Transactional
     public void deleteTag(Long tagId, Long userId) {
-        Tag tag = getTagAndValidateOwnership(tagId, userId);
+        Tag tag = ownedResourceLookup.getTag(tagId, userId);
 
         // Check if tag is in use by todos
-        long todosUsingTag = todoRepository.findByUserIdAndTagId(userId, tagId).size();
+        long todosUsingTag = todoRepository.countByUserIdAndTagId(userId, tagId);
         if (todosUsingTag > 0) {
             throw new ValidationException(
                     String.format("Cannot delete tag. It is being used by %d todo(s)", todosUsingTag));
         }
 
-        // Check if tag is in use by time blocks
-        long timeBlocksUsingTag = timeBlockRepository.findByUserIdAndTagId(userId, tagId).size();
+        // Check if tag is in use by time blocks, archived ones included
+        long timeBlocksUsingTag = timeBlockRepository.countByUserIdAndTagId(userId, tagId)
+                + archivedTimeBlockRepository.countByUserIdAndTagId(userId, tagId);
         if (timeBlocksUsingTag > 0) {
             throw new ValidationException(
                     String.format("Cannot delete tag. It is being used by %d time block(s)", timeBlocksUsingTag));
@@ -92,25 +116,30 @@ public class TagService {
         tagRepository.delete(tag);
     }
 
-    public boolean isTagInUse(Long tagId, Long userId) {
-        getTagAndValidateOwnership(tagId, userId);
+    // Moves everything tagged with the source tag onto the target, then deletes the
+    // source. One UPDATE per table, however many rows carry the tag.
+    @Transactional
+    public TagMergeResponse mergeTag(Long sourceTagId, Long targetTagId, Long userId) {
+        if (sourceTagId.equals(targetTagId)) {
+            throw new ValidationException("Cannot merge a tag into itself");
+        }
+        Tag source = ownedResourceLookup.getTag(sourceTagId, userId);
+        TagRow target = ownedResourceLookup.getTagRow(targetTagId, userId);
 
-        long todosUsingTag = todoRepository.findByUserIdAndTagId(userId, tagId).size();
-        long timeBlocksUsingTag = timeBlockRepository.findByUserIdAndTagId(userId, tagId).size();
+        int movedTodos = todoRepository.reassignTag(userId, sourceTagId, targetTagId);
+        int movedTimeBlocks = timeBlockRepository.reassignTag(userId, sourceTagId, targetTagId)
+                + archivedTimeBlockRepository.reassignTag(userId, sourceTagId, targetTagId);
 
-        return todosUsingTag > 0 || timeBlocksUsingTag > 0;
+        tagRepository.delete(source);
+        return new TagMergeResponse(tagMapper.toResponse(target), movedTodos, movedTimeBlocks);
     }
 
-    // Helper method
-
-    private Tag getTagAndValidateOwnership(Long tagId, Long userId) {
-        Tag tag = tagRepository.findById(tagId)
-                .orElseThrow(() -> new ResourceNotFoundException("Tag", "id", tagId));
-
-        if (!tag.getUser().getId().equals(userId)) {
-            throw new UnauthorizedException("You don't have permission to access this tag");
-        }
+    @Transactional(readOnly = true)
+    public boolean isTagInUse(Long tagId, Long userId) {
+        ownedResourceLookup.requireTag(tagId, userId);
 
-        return tag;
+        return todoRepository.existsByUserIdAndTagId(userId, tagId)
+                || timeBlockRepository.existsByUserIdAndTagId(userId, tagId)
+                || archivedTimeBlockRepository.existsByUserIdAndTagId(userId, tagId);
     }
 }
@@ -0,0 +1,64 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.config.ShardRouter;
+import dev.atinroy.backend.repository.ArchivedTimeBlockRepository;
+import dev.atinroy.backend.repository.TimeBlockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TimeBlockArchiveService {
+
+    private final TimeBlockRepository timeBlockRepository;
+    private final ArchivedTimeBlockRepository archivedTimeBlockRepository;
+    private final StatsRollupService statsRollupService;
+    private final ShardRouter shardRouter;
+
+    @Value("${app.archive.after}")
+    private Duration archiveAfter;
+
+    @Value("${app.archive.batch-size}")
+    private int batchSize;
+
+    // Blocks started before this may live in the archive. Reads whose range starts
+    // earlier also have to look there.
+    public LocalDateTime getHotWindowStart() {
+        return LocalDate.now().minusDays(archiveAfter.toDays()).atStartOfDay();
+    }
+
+    public boolean reachesArchive(LocalDateTime from) {
+        return from == null || from.isBefore(getHotWindowStart());
+    }
+
+    // Runs off-peak. A user's rollups are made sure to exist before any of their
+    // blocks move, because a rollup built later from time_blocks alone would miss
+    // the archived ones. Rebuilds read the archive too, see StatsRollupService.
+    // Every batch commits on its own.
+    @Scheduled(cron = "${app.archive.cron}")
+    public void archiveOldTimeBlocks() {
+        LocalDateTime cutoff = getHotWindowStart();
+        shardRouter.runOnEachShard(() -> {
+            long archived = 0;
+            for (Long userId : timeBlockRepository.findUserIdsWithBlocksToArchive(cutoff)) {
+                statsRollupService.ensureRolledUp(userId);
+
+                int moved;
+                do {
+                    moved = archivedTimeBlockRepository.archiveEndedBefore(userId, cutoff, batchSize);
+                    archived += moved;
+                } while (moved == batchSize);
+            }
+            log.info("Archived {} time blocks started before {} on shard {}", archived, cutoff,
+                    shardRouter.currentShard());
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.config.ShardRouter;
+import dev.atinroy.backend.repository.TimeBlockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TimeBlockPartitionService {
+
+    private final TimeBlockRepository timeBlockRepository;
+    private final ShardRouter shardRouter;
+
+    @Value("${app.partitions.months-ahead}")
+    private int monthsAhead;
+
+    // Keeps the current month and the next few partitioned ahead of time, so new
+    // blocks never fall into time_blocks_default. Also runs at startup to catch
+    // up after downtime; creating a partition that already exists is a no-op.
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.partitions.cron}")
+    public void createUpcomingPartitions() {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        shardRouter.runOnEachShard(() -> {
+            for (int i = 0; i <= monthsAhead; i++) {
+                if (timeBlockRepository.createPartitionForMonth(month.plusMonths(i))) {
+                    log.info("Created time_blocks partition for {} on shard {}", month.plusMonths(i),
+                            shardRouter.currentShard());
+                }
+            }
+        });
+    }
+}
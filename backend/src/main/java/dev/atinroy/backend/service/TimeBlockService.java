@@ -1,97 +1,122 @@
 package dev.atinroy.backend.service;
 
+import dev.atinroy.backend.dto.common.CursorPage;
 import dev.atinroy.backend.dto.timeblock.EndTimeBlockRequest;
+import dev.atinroy.backend.dto.timeblock.ImportTimeBlockError;
+import dev.atinroy.backend.dto.timeblock.ImportTimeBlockRequest;
+import dev.atinroy.backend.dto.timeblock.ImportTimeBlocksRequest;
+import dev.atinroy.backend.dto.timeblock.ImportTimeBlocksResponse;
 import dev.atinroy.backend.dto.timeblock.StartTimeBlockRequest;
+import dev.atinroy.backend.dto.timeblock.TimeBlockFilter;
 import dev.atinroy.backend.dto.timeblock.TimeBlockResponse;
 import dev.atinroy.backend.entity.*;
 import dev.atinroy.backend.exception.ResourceNotFoundException;
-import dev.atinroy.backend.exception.UnauthorizedException;
 import dev.atinroy.backend.exception.ValidationException;
 import dev.atinroy.backend.mapper.TimeBlockMapper;
-import dev.atinroy.backend.repository.TagRepository;
+import dev.atinroy.backend.repository.ArchivedTimeBlockRepository;
 import dev.atinroy.backend.repository.TimeBlockRepository;
-import dev.atinroy.backend.repository.TodoRepository;
+import dev.atinroy.backend.repository.projection.TimeBlockRow;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TimeBlockService {
 
+    // Keyset order of the time block pages, hot and archived rows interleave by it
+    private static final Comparator<TimeBlockRow> NEWEST_FIRST = Comparator
+            .comparing(TimeBlockRow::startedAt)
+            .thenComparing(TimeBlockRow::id)
+            .reversed();
+
     private final TimeBlockRepository timeBlockRepository;
-    private final TodoRepository todoRepository;
-    private final TagRepository tagRepository;
-    private final UserService userService;
+    private final ArchivedTimeBlockRepository archivedTimeBlockRepository;
+    private final TimeBlockArchiveService timeBlockArchiveService;
+    private final OwnedResourceLookup ownedResourceLookup;
     private final UserStreakService userStreakService;
+    private final StatsRollupService statsRollupService;
     private final TimeBlockMapper timeBlockMapper;
+    private final CursorPagination cursorPagination;
 
+    @Transactional(readOnly = true)
     public Optional<TimeBlockResponse> getActiveTimeBlock(Long userId) {
-        return timeBlockRepository.findByUserIdAndEndedAtIsNull(userId)
+        return timeBlockRepository.findActiveRowByUserId(userId)
                 .map(timeBlockMapper::toResponse);
     }
 
-    public List<TimeBlockResponse> getAllTimeBlocksByUser(Long userId) {
-        return timeBlockRepository.findByUserId(userId).stream()
-                .map(timeBlockMapper::toResponse)
-                .collect(Collectors.toList());
-    }
-
-    public List<TimeBlockResponse> getTimeBlocksByDate(Long userId, LocalDate date) {
-        return timeBlockRepository.findByUserIdAndDate(userId, date).stream()
-                .map(timeBlockMapper::toResponse)
-                .collect(Collectors.toList());
-    }
-
-    public List<TimeBlockResponse> getTimeBlocksByDateRange(Long userId, LocalDateTime startDate,
-            LocalDateTime endDate) {
-        return timeBlockRepository.findByUserIdAndDateRange(userId, startDate, endDate).stream()
-                .map(timeBlockMapper::toResponse)
-                .collect(Collectors.toList());
-    }
-
-    public List<TimeBlockResponse> getTimeBlocksByPurpose(Long userId, BlockPurpose purpose) {
-        return timeBlockRepository.findByUserIdAndPurpose(userId, purpose).stream()
-                .map(timeBlockMapper::toResponse)
-                .collect(Collectors.toList());
-    }
+    @Transactional(readOnly = true)
+    public List<TimeBlockResponse> searchTimeBlocks(Long userId, TimeBlockFilter filter) {
+        if (filter.getLimit() != null) {
+            filter.setLimit(cursorPagination.resolvePageSize(filter.getLimit()));
+        }
 
-    public List<TimeBlockResponse> getTimeBlocksByTag(Long userId, Long tagId) {
-        // Validate tag ownership
-        getTagAndValidateOwnership(tagId, userId);
+        List<TimeBlockRow> timeBlocks = timeBlockRepository.search(userId, filter);
+        LocalDateTime from = filter.getDate() != null ? filter.getDate().atStartOfDay() : filter.getStartDate();
+        if (timeBlockArchiveService.reachesArchive(from)) {
+            Comparator<TimeBlockRow> order = filter.getSort() == Sort.Direction.DESC
+                    ? NEWEST_FIRST
+                    : NEWEST_FIRST.reversed();
+            timeBlocks = merge(timeBlocks, timeBlockRepository.searchArchived(userId, filter), order,
+                    filter.getLimit());
+        }
 
-        return timeBlockRepository.findByUserIdAndTagId(userId, tagId).stream()
+        return timeBlocks.stream()
                 .map(timeBlockMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
-    public List<TimeBlockResponse> getTimeBlocksByTodo(Long userId, Long todoId) {
-        // Validate todo ownership
-        getTodoAndValidateOwnership(todoId, userId);
+    @Transactional(readOnly = true)
+    public CursorPage<TimeBlockResponse> getTimeBlockPage(Long userId, String cursor, Integer size) {
+        int pageSize = cursorPagination.resolvePageSize(size);
+
+        CursorPagination.Cursor<LocalDateTime> after = cursor != null
+                ? cursorPagination.decode(cursor, LocalDateTime::parse)
+                : null;
+        List<TimeBlockRow> timeBlocks = after == null
+                ? timeBlockRepository.findFirstPageByUserId(userId, cursorPagination.probe(pageSize))
+                : timeBlockRepository.findPageByUserIdAfter(userId, after.sortKey(), after.id(),
+                        cursorPagination.probe(pageSize));
+
+        // Archived blocks all started before the hot window, so the archive is only
+        // read once the hot rows run out or the page has already reached that far
+        if (timeBlocks.size() <= pageSize
+                || timeBlockArchiveService.reachesArchive(timeBlocks.get(timeBlocks.size() - 1).startedAt())) {
+            List<TimeBlockRow> archived = after == null
+                    ? archivedTimeBlockRepository.findFirstPageByUserId(userId, cursorPagination.probe(pageSize))
+                    : archivedTimeBlockRepository.findPageByUserIdAfter(userId, after.sortKey(), after.id(),
+                            cursorPagination.probe(pageSize));
+            timeBlocks = merge(timeBlocks, archived, NEWEST_FIRST, pageSize + 1);
+        }
 
-        return timeBlockRepository.findByUserIdAndTodoId(userId, todoId).stream()
-                .map(timeBlockMapper::toResponse)
-                .collect(Collectors.toList());
+        return cursorPagination.toPage(timeBlocks, pageSize,
+                tb -> cursorPagination.encode(tb.id(), tb.startedAt()),
+                timeBlockMapper::toResponse);
     }
 
+    @Transactional(readOnly = true)
     public TimeBlockResponse getTimeBlockById(Long timeBlockId, Long userId) {
-        TimeBlock timeBlock = getTimeBlockAndValidateOwnership(timeBlockId, userId);
-        return timeBlockMapper.toResponse(timeBlock);
+        return timeBlockMapper.toResponse(ownedResourceLookup.getTimeBlockRow(timeBlockId, userId));
     }
 
     @Transactional
     public TimeBlockResponse startTimeBlock(StartTimeBlockRequest request, Long userId) {
-        User user = userService.getUserById(userId);
+        User user = ownedResourceLookup.getUserReference(userId);
 
         // Check if there's already an active time block
-        Optional<TimeBlock> activeBlock = timeBlockRepository.findByUserIdAndEndedAtIsNull(userId);
-        if (activeBlock.isPresent()) {
+        if (timeBlockRepository.existsByUserIdAndEndedAtIsNull(userId)) {
             throw new ValidationException(
                     "Cannot start a new time block. Please end the current active time block first.");
         }
@@ -116,7 +141,7 @@ public class TimeBlockService {
             if (request.getPurpose() == BlockPurpose.SHORT_BREAK || request.getPurpose() == BlockPurpose.LONG_BREAK) {
                 throw new ValidationException("Break blocks cannot be associated with a todo");
             }
-            Todo todo = getTodoAndValidateOwnership(request.getTodoId(), userId);
+            Todo todo = ownedResourceLookup.getTodo(request.getTodoId(), userId);
             timeBlock.setTodo(todo);
 
             // If todo has a tag, timeblock must use the same tag
@@ -124,7 +149,7 @@ public class TimeBlockService {
                 timeBlock.setTag(todo.getTag());
             } else if (request.getTagId() != null) {
                 // Todo has no tag, but request has a tag - use it
-                Tag tag = getTagAndValidateOwnership(request.getTagId(), userId);
+                Tag tag = ownedResourceLookup.getTag(request.getTagId(), userId);
                 timeBlock.setTag(tag);
             }
         } else {
@@ -134,7 +159,7 @@ public class TimeBlockService {
                         || request.getPurpose() == BlockPurpose.LONG_BREAK) {
                     throw new ValidationException("Break blocks cannot have a tag");
                 }
-                Tag tag = getTagAndValidateOwnership(request.getTagId(), userId);
+                Tag tag = ownedResourceLookup.getTag(request.getTagId(), userId);
                 timeBlock.setTag(tag);
             }
         }
@@ -145,7 +170,7 @@ public class TimeBlockService {
 
     @Transactional
     public TimeBlockResponse endTimeBlock(Long timeBlockId, EndTimeBlockRequest request, Long userId) {
-        TimeBlock timeBlock = getTimeBlockAndValidateOwnership(timeBlockId, userId);
+        TimeBlock timeBlock = ownedResourceLookup.getTimeBlock(timeBlockId, userId);
 
         if (timeBlock.getEndedAt() != null) {
             throw new ValidationException("This time block has already been ended");
@@ -158,6 +183,7 @@ public class TimeBlockService {
         }
 
         TimeBlock savedTimeBlock = timeBlockRepository.save(timeBlock);
+        statsRollupService.recordTimeBlockEnded(savedTimeBlock);
 
         // Update streak if this was a focus session
         if (timeBlock.getPurpose() == BlockPurpose.FOCUS) {
@@ -167,44 +193,119 @@ public class TimeBlockService {
         return timeBlockMapper.toResponse(savedTimeBlock);
     }
 
+    // Completed blocks recorded offline. Every row goes through the same checks as a
+    // live block, failures are reported per row and the rest are inserted in JDBC
+    // batches, with rollups and the streak updated once for the whole batch
+    @Transactional
+    public ImportTimeBlocksResponse importTimeBlocks(ImportTimeBlocksRequest request, Long userId) {
+        User user = ownedResourceLookup.getUserReference(userId);
+        List<ImportTimeBlockRequest> rows = request.getBlocks();
+
+        Map<Long, Todo> todos = ownedResourceLookup.getTodos(rows.stream()
+                .map(ImportTimeBlockRequest::getTodoId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()), userId);
+        Map<Long, Tag> tags = ownedResourceLookup.getTags(rows.stream()
+                .map(ImportTimeBlockRequest::getTagId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()), userId);
+
+        List<TimeBlock> timeBlocks = new ArrayList<>();
+        List<ImportTimeBlockError> errors = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                timeBlocks.add(toImportedTimeBlock(rows.get(i), user, todos, tags));
+            } catch (ValidationException | ResourceNotFoundException | IllegalStateException e) {
+                errors.add(new ImportTimeBlockError(i, e.getMessage()));
+            }
+        }
+
+        timeBlockRepository.insertAll(timeBlocks);
+        statsRollupService.recordTimeBlocksEnded(userId, timeBlocks);
+
+        Set<LocalDate> focusDates = timeBlocks.stream()
+                .filter(timeBlock -> timeBlock.getPurpose() == BlockPurpose.FOCUS)
+                .map(timeBlock -> timeBlock.getStartedAt().toLocalDate())
+                .collect(Collectors.toSet());
+        if (!focusDates.isEmpty()) {
+            userStreakService.updateStreakOnActivities(userId, focusDates);
+        }
+
+        return new ImportTimeBlocksResponse(rows.size(), timeBlocks.size(), errors);
+    }
+
     @Transactional
     public void deleteTimeBlock(Long timeBlockId, Long userId) {
-        TimeBlock timeBlock = getTimeBlockAndValidateOwnership(timeBlockId, userId);
+        TimeBlock timeBlock = ownedResourceLookup.getTimeBlock(timeBlockId, userId);
         timeBlockRepository.delete(timeBlock);
+        statsRollupService.recordTimeBlockDeleted(timeBlock);
     }
 
     // Helper methods
 
-    private TimeBlock getTimeBlockAndValidateOwnership(Long timeBlockId, Long userId) {
-        TimeBlock timeBlock = timeBlockRepository.findById(timeBlockId)
-                .orElseThrow(() -> new ResourceNotFoundException("TimeBlock", "id", timeBlockId));
-
-        if (!timeBlock.getUser().getId().equals(userId)) {
-            throw new UnauthorizedException("You don't have permission to access this time block");
+    private static List<TimeBlockRow> merge(List<TimeBlockRow> hot, List<TimeBlockRow> archived,
+            Comparator<TimeBlockRow> order, Integer limit) {
+        if (archived.isEmpty()) {
+            return hot;
         }
-
-        return timeBlock;
+        List<TimeBlockRow> merged = new ArrayList<>(hot);
+        merged.addAll(archived);
+        merged.sort(order);
+        return limit != null && merged.size() > limit ? merged.subList(0, limit) : merged;
     }
 
-    private Todo getTodoAndValidateOwnership(Long todoId, Long userId) {
-        Todo todo = todoRepository.findById(todoId)
-                .orElseThrow(() -> new ResourceNotFoundException("Todo", "id", todoId));
-
-        if (!todo.getUser().getId().equals(userId)) {
-            throw new UnauthorizedException("You don't have permission to access this todo");
+    private TimeBlock toImportedTimeBlock(ImportTimeBlockRequest row, User user, Map<Long, Todo> todos,
+            Map<Long, Tag> tags) {
+        if (row.getPurpose() == null) {
+            throw new ValidationException("Purpose is required");
+        }
+        if (row.getMode() == null) {
+            throw new ValidationException("Mode is required");
+        }
+        if (row.getStartedAt() == null || row.getEndedAt() == null) {
+            throw new ValidationException("Imported time blocks must have a start and an end time");
+        }
+        if (row.getEndedAt().isAfter(LocalDateTime.now())) {
+            throw new ValidationException("Imported time blocks cannot end in the future");
         }
 
-        return todo;
-    }
-
-    private Tag getTagAndValidateOwnership(Long tagId, Long userId) {
-        Tag tag = tagRepository.findById(tagId)
-                .orElseThrow(() -> new ResourceNotFoundException("Tag", "id", tagId));
+        boolean breakBlock = row.getPurpose() == BlockPurpose.SHORT_BREAK
+                || row.getPurpose() == BlockPurpose.LONG_BREAK;
 
-        if (!tag.getUser().getId().equals(userId)) {
-            throw new UnauthorizedException("You don't have permission to access this tag");
+        TimeBlock timeBlock = new TimeBlock();
+        timeBlock.setUser(user);
+        timeBlock.setPurpose(row.getPurpose());
+        timeBlock.setMode(row.getMode());
+        timeBlock.setStartedAt(row.getStartedAt());
+        timeBlock.setEndedAt(row.getEndedAt());
+        timeBlock.setPlannedDurationSeconds(row.getPlannedDurationSeconds());
+        timeBlock.setNotes(row.getNotes());
+
+        // Same todo and tag rules as startTimeBlock
+        if (row.getTodoId() != null) {
+            if (breakBlock) {
+                throw new ValidationException("Break blocks cannot be associated with a todo");
+            }
+            Todo todo = todos.get(row.getTodoId());
+            if (todo == null) {
+                throw new ResourceNotFoundException("Todo", "id", row.getTodoId());
+            }
+            timeBlock.setTodo(todo);
+        }
+        if (timeBlock.getTodo() != null && timeBlock.getTodo().getTag() != null) {
+            timeBlock.setTag(timeBlock.getTodo().getTag());
+        } else if (row.getTagId() != null) {
+            if (breakBlock) {
+                throw new ValidationException("Break blocks cannot have a tag");
+            }
+            Tag tag = tags.get(row.getTagId());
+            if (tag == null) {
+                throw new ResourceNotFoundException("Tag", "id", row.getTagId());
+            }
+            timeBlock.setTag(tag);
         }
 
-        return tag;
+        timeBlock.validateAndCalculate();
+        return timeBlock;
     }
 }
@@ -0,0 +1,36 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.config.ShardRouter;
+import dev.atinroy.backend.repository.TodoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// Keys only grow when todos keep being moved into the same gap, see RankKeys. Runs
+// off-peak and respaces the keys of the few users who got past max-key-length, one
+// transaction per user.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TodoRebalanceService {
+
+    private final TodoRepository todoRepository;
+    private final TodoService todoService;
+    private final ShardRouter shardRouter;
+
+    @Value("${app.todo-order.max-key-length}")
+    private int maxKeyLength;
+
+    @Scheduled(cron = "${app.todo-order.rebalance-cron}")
+    public void rebalanceLongSortKeys() {
+        shardRouter.runOnEachShard(() -> {
+            long rebalanced = 0;
+            for (Long userId : todoRepository.findUserIdsWithSortKeysLongerThan(maxKeyLength)) {
+                rebalanced += todoService.rebalanceSortKeys(userId);
+            }
+            log.info("Rebalanced the sort keys of {} todos on shard {}", rebalanced, shardRouter.currentShard());
+        });
+    }
+}
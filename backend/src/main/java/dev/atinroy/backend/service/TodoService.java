@@ -1,20 +1,27 @@
 package dev.atinroy.backend.service;
 
+import dev.atinroy.backend.dto.common.CursorPage;
+import dev.atinroy.backend.dto.todo.BulkTodoRequest;
+import dev.atinroy.backend.dto.todo.BulkTodoResponse;
+import dev.atinroy.backend.dto.todo.MoveTodoRequest;
 import dev.atinroy.backend.dto.todo.TodoRequest;
 import dev.atinroy.backend.dto.todo.TodoResponse;
 import dev.atinroy.backend.entity.Tag;
 import dev.atinroy.backend.entity.Todo;
 import dev.atinroy.backend.entity.User;
-import dev.atinroy.backend.exception.ResourceNotFoundException;
-import dev.atinroy.backend.exception.UnauthorizedException;
+import dev.atinroy.backend.exception.ValidationException;
 import dev.atinroy.backend.mapper.TodoMapper;
-import dev.atinroy.backend.repository.TagRepository;
+import dev.atinroy.backend.repository.TimeBlockRepository;
 import dev.atinroy.backend.repository.TodoRepository;
+import dev.atinroy.backend.repository.projection.TodoRow;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,53 +29,85 @@ import java.util.stream.Collectors;
 public class TodoService {
 
     private final TodoRepository todoRepository;
-    private final TagRepository tagRepository;
-    private final UserService userService;
+    private final TimeBlockRepository timeBlockRepository;
+    private final OwnedResourceLookup ownedResourceLookup;
     private final TodoMapper todoMapper;
+    private final CursorPagination cursorPagination;
 
+    @Transactional(readOnly = true)
     public List<TodoResponse> getAllTodosByUser(Long userId) {
-        return todoRepository.findByUserId(userId).stream()
+        return todoRepository.findRowsByUserId(userId).stream()
                 .map(todoMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<TodoResponse> getTodoPage(Long userId, String cursor, Integer size) {
+        int pageSize = cursorPagination.resolvePageSize(size);
+
+        List<TodoRow> todos;
+        if (cursor == null) {
+            todos = todoRepository.findFirstPageByUserId(userId, cursorPagination.probe(pageSize));
+        } else {
+            CursorPagination.Cursor<Instant> after = cursorPagination.decode(cursor, Instant::parse);
+            todos = todoRepository.findPageByUserIdAfter(userId, after.sortKey(), after.id(),
+                    cursorPagination.probe(pageSize));
+        }
+
+        return cursorPagination.toPage(todos, pageSize,
+                todo -> cursorPagination.encode(todo.id(), todo.createdAt()),
+                todoMapper::toResponse);
+    }
+
+    @Transactional(readOnly = true)
     public List<TodoResponse> getTodosByUserAndStatus(Long userId, Boolean completed) {
-        return todoRepository.findByUserIdAndCompleted(userId, completed).stream()
+        return todoRepository.findRowsByUserIdAndCompleted(userId, completed).stream()
                 .map(todoMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<TodoResponse> getTodosByUserAndTag(Long userId, Long tagId) {
         // Verify tag belongs to user
-        Tag tag = getTagAndValidateOwnership(tagId, userId);
+        ownedResourceLookup.requireTag(tagId, userId);
 
-        return todoRepository.findByUserIdAndTagId(userId, tagId).stream()
+        return todoRepository.findRowsByUserIdAndTagId(userId, tagId).stream()
                 .map(todoMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<TodoResponse> getIncompleteTodosOrderedByPriority(Long userId) {
         return todoRepository.findIncompleteTodosByUserOrderedByPriority(userId).stream()
                 .map(todoMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public List<TodoResponse> getIncompleteTodosInManualOrder(Long userId) {
+        return todoRepository.findIncompleteTodosByUserOrderedBySortKey(userId).stream()
+                .map(todoMapper::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
     public TodoResponse getTodoById(Long todoId, Long userId) {
-        Todo todo = getTodoAndValidateOwnership(todoId, userId);
-        return todoMapper.toResponse(todo);
+        return todoMapper.toResponse(ownedResourceLookup.getTodoRow(todoId, userId));
     }
 
     @Transactional
     public TodoResponse createTodo(TodoRequest request, Long userId) {
-        User user = userService.getUserById(userId);
+        User user = ownedResourceLookup.getUserReference(userId);
 
         Todo todo = todoMapper.toEntity(request);
         todo.setUser(user);
         todo.setCompleted(false);
+        todoRepository.lockSortKeys(userId);
+        todo.setSortKey(RankKeys.between(todoRepository.findLastSortKey(userId).orElse(null), null));
 
         // Set tag if provided
         if (request.getTagId() != null) {
-            Tag tag = getTagAndValidateOwnership(request.getTagId(), userId);
+            Tag tag = ownedResourceLookup.getTag(request.getTagId(), userId);
             todo.setTag(tag);
         }
 
@@ -78,11 +117,11 @@ public class TodoService {
 
     @Transactional
     public TodoResponse updateTodo(Long todoId, TodoRequest request, Long userId) {
-        Todo todo = getTodoAndValidateOwnership(todoId, userId);
+        Todo todo = ownedResourceLookup.getTodo(todoId, userId);
 
         // Update tag if provided
         if (request.getTagId() != null) {
-            Tag tag = getTagAndValidateOwnership(request.getTagId(), userId);
+            Tag tag = ownedResourceLookup.getTag(request.getTagId(), userId);
             todo.setTag(tag);
         } else if (request.getTagId() == null && todo.getTag() != null) {
             // If tagId is explicitly null, remove the tag
@@ -96,47 +135,102 @@ public class TodoService {
 
     @Transactional
     public TodoResponse toggleTodoCompletion(Long todoId, Long userId) {
-        Todo todo = getTodoAndValidateOwnership(todoId, userId);
+        Todo todo = ownedResourceLookup.getTodo(todoId, userId);
         todo.setCompleted(!todo.getCompleted());
         Todo updatedTodo = todoRepository.save(todo);
         return todoMapper.toResponse(updatedTodo);
     }
 
+    // Gives the todo a key between its new neighbours, only its own row changes.
+    // Writes to a user's keys take lockSortKeys first, so the neighbours cannot
+    // change under a move. Equal keys left by earlier concurrent moves still order
+    // by id, and a move into such a gap respaces the keys first.
+    @Transactional
+    public TodoResponse moveTodo(Long todoId, MoveTodoRequest request, Long userId) {
+        todoRepository.lockSortKeys(userId);
+        Todo todo = ownedResourceLookup.getTodo(todoId, userId);
+        Long afterId = request.getAfterId();
+        if (todoId.equals(afterId)) {
+            throw new ValidationException("A todo cannot be moved after itself");
+        }
+        Todo previous = afterId != null ? ownedResourceLookup.getTodo(afterId, userId) : null;
+
+        String before = previous != null ? previous.getSortKey() : null;
+        String after = nextSortKey(previous, todoId, userId);
+        if (before != null && after != null && before.compareTo(after) >= 0) {
+            rebalanceSortKeys(userId);
+            before = previous.getSortKey();
+            after = nextSortKey(previous, todoId, userId);
+        }
+
+        todo.setSortKey(RankKeys.between(before, after));
+        Todo movedTodo = todoRepository.save(todo);
+        return todoMapper.toResponse(movedTodo);
+    }
+
+    // Respaces all of a user's keys in their current order, see TodoRebalanceService
+    @Transactional
+    public int rebalanceSortKeys(Long userId) {
+        todoRepository.lockSortKeys(userId);
+        List<Todo> todos = todoRepository.findByUserIdOrderBySortKeyAscIdAsc(userId);
+        List<String> sortKeys = RankKeys.spaced(todos.size());
+        for (int i = 0; i < todos.size(); i++) {
+            todos.get(i).setSortKey(sortKeys.get(i));
+        }
+        todoRepository.saveAll(todos);
+        return todos.size();
+    }
+
     @Transactional
     public void deleteTodo(Long todoId, Long userId) {
-        Todo todo = getTodoAndValidateOwnership(todoId, userId);
+        Todo todo = ownedResourceLookup.getTodo(todoId, userId);
+        timeBlockRepository.detachOpenBlocks(userId, List.of(todoId));
         todoRepository.delete(todo);
     }
 
+    // One ownership query and one set-based statement, whatever the number of ids
+    @Transactional
+    public BulkTodoResponse applyBulkOperation(BulkTodoRequest request, Long userId) {
+        Set<Long> ids = new LinkedHashSet<>(request.getIds());
+        ownedResourceLookup.requireTodos(ids, userId);
+
+        int affected = switch (request.getOperation()) {
+            case COMPLETE -> todoRepository.updateCompleted(userId, ids, true);
+            case UNCOMPLETE -> todoRepository.updateCompleted(userId, ids, false);
+            case DELETE -> {
+                timeBlockRepository.detachOpenBlocks(userId, ids);
+                yield todoRepository.softDelete(userId, ids);
+            }
+            case SET_TAG -> {
+                if (request.getTagId() != null) {
+                    ownedResourceLookup.requireTag(request.getTagId(), userId);
+                }
+                yield todoRepository.updateTag(userId, ids, request.getTagId());
+            }
+            case SET_PRIORITY -> todoRepository.updatePriority(userId, ids, request.getPriority());
+        };
+
+        return new BulkTodoResponse(request.getOperation(), affected);
+    }
+
+    @Transactional(readOnly = true)
     public long countTodosByUser(Long userId) {
         return todoRepository.countByUserId(userId);
     }
 
+    @Transactional(readOnly = true)
     public long countTodosByUserAndStatus(Long userId, Boolean completed) {
         return todoRepository.countByUserIdAndCompleted(userId, completed);
     }
 
     // Helper methods
 
-    private Todo getTodoAndValidateOwnership(Long todoId, Long userId) {
-        Todo todo = todoRepository.findById(todoId)
-                .orElseThrow(() -> new ResourceNotFoundException("Todo", "id", todoId));
-
-        if (!todo.getUser().getId().equals(userId)) {
-            throw new UnauthorizedException("You don't have permission to access this todo");
+    // The key of the todo that follows `previous` in the incomplete list, or of the
+    // first one when moving to the top, leaving out the todo being moved
+    private String nextSortKey(Todo previous, Long todoId, Long userId) {
+        if (previous == null) {
+            return todoRepository.findFirstSortKey(userId, todoId).orElse(null);
         }
-
-        return todo;
-    }
-
-    private Tag getTagAndValidateOwnership(Long tagId, Long userId) {
-        Tag tag = tagRepository.findById(tagId)
-                .orElseThrow(() -> new ResourceNotFoundException("Tag", "id", tagId));
-
-        if (!tag.getUser().getId().equals(userId)) {
-            throw new UnauthorizedException("You don't have permission to access this tag");
-        }
-
-        return tag;
+        return todoRepository.findNextSortKey(userId, previous.getSortKey(), previous.getId(), todoId).orElse(null);
     }
 }
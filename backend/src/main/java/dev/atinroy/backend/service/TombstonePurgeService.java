@@ -0,0 +1,68 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.config.ShardRouter;
+import dev.atinroy.backend.repository.TagRepository;
+import dev.atinroy.backend.repository.TimeBlockRepository;
+import dev.atinroy.backend.repository.TodoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.ToIntBiFunction;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TombstonePurgeService {
+
+    private final TimeBlockRepository timeBlockRepository;
+    private final TodoRepository todoRepository;
+    private final TagRepository tagRepository;
+    private final ShardRouter shardRouter;
+
+    // Tombstones are kept long enough for offline clients to sync the deletion,
+    // see SyncService
+    @Value("${app.purge.retention}")
+    private Duration retention;
+
+    @Value("${app.purge.batch-size}")
+    private int batchSize;
+
+    @Value("${app.purge.max-batches}")
+    private int maxBatches;
+
+    // Runs off-peak. Each batch commits on its own so no run holds locks for long,
+    // and the batch cap bounds how much a single run can do. Time blocks go first
+    // so the todos and tags they pointed at become purgeable in the same run.
+    @Scheduled(cron = "${app.purge.cron}")
+    public void purgeTombstones() {
+        Instant cutoff = Instant.now().minus(retention);
+        shardRouter.runOnEachShard(() -> {
+            int timeBlocks = purge(timeBlockRepository::purgeDeletedBefore, cutoff);
+            int todos = purge(todoRepository::purgeDeletedBefore, cutoff);
+            int tags = purge(tagRepository::purgeDeletedBefore, cutoff);
+            log.info("Purged tombstones deleted before {} on shard {}: {} time blocks, {} todos, {} tags",
+                    cutoff, shardRouter.currentShard(), timeBlocks, todos, tags);
+        });
+    }
+
+    public Instant getRetentionCutoff() {
+        return Instant.now().minus(retention);
+    }
+
+    private int purge(ToIntBiFunction<Instant, Integer> purgeBatch, Instant cutoff) {
+        int purged = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int deleted = purgeBatch.applyAsInt(cutoff, batchSize);
+            purged += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        return purged;
+    }
+}
@@ -1,11 +1,14 @@
 package dev.atinroy.backend.service;
 
+import dev.atinroy.backend.config.ShardRouter;
+import dev.atinroy.backend.dto.account.AccountDeletionResponse;
 import dev.atinroy.backend.entity.User;
+import dev.atinroy.backend.entity.UserSettings;
+import dev.atinroy.backend.entity.UserStreak;
 import dev.atinroy.backend.exception.ResourceNotFoundException;
 import dev.atinroy.backend.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -14,74 +17,108 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final TodoRepository todoRepository;
-    private final TagRepository tagRepository;
-    private final TimeBlockRepository timeBlockRepository;
     private final UserSettingsRepository userSettingsRepository;
     private final UserStreakRepository userStreakRepository;
+    private final UserLifetimeStatsRepository userLifetimeStatsRepository;
+    private final AccountDeletionService accountDeletionService;
+    private final StatsRollupService statsRollupService;
+    private final ShardRouter shardRouter;
 
     public User getUserById(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
     }
 
+    // Lookups by email or username go to the user directory, see ShardRouter
+
     public User getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
+        return findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
     }
 
     public User getUserByUsername(String username) {
-        return userRepository.findByUsername(username)
+        return findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
     }
 
     public Optional<User> findByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return shardRouter.callOnDirectory(() -> userRepository.findByEmail(email));
     }
 
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return shardRouter.callOnDirectory(() -> userRepository.findByUsername(username));
     }
 
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        return shardRouter.callOnDirectory(() -> userRepository.existsByEmail(email));
     }
 
     public boolean existsByUsername(String username) {
-        return userRepository.existsByUsername(username);
+        return shardRouter.callOnDirectory(() -> userRepository.existsByUsername(username));
     }
 
-    @Transactional
+    // The directory entry is the source of truth, the home shard copy follows it
     public User updateUser(Long userId, String email, String username) {
-        User user = getUserById(userId);
+        User updatedUser = shardRouter.callOnDirectory(() -> {
+            User user = getUserById(userId);
 
-        if (email != null && !email.equals(user.getEmail())) {
-            user.setEmail(email);
-        }
+            if (email != null && !email.equals(user.getEmail())) {
+                user.setEmail(email);
+            }
 
-        if (username != null && !username.equals(user.getUsername())) {
-            user.setUsername(username);
-        }
+            if (username != null && !username.equals(user.getUsername())) {
+                user.setUsername(username);
+            }
 
-        return userRepository.save(user);
+            return userRepository.save(user);
+        });
+        provisionHomeShard(updatedUser);
+        return updatedUser;
     }
 
-    @Transactional
-    public void deleteUser(Long userId) {
-        User user = getUserById(userId);
+    // Gives a directory entry everything it needs on the user's home shard: a copy
+    // of the users row for the foreign keys of their data, the settings and streak
+    // every account starts with, and its stats rollup, so stats reads never have
+    // to write. Each step is idempotent, so repeating it repairs a registration
+    // that failed half-way.
+    public void provisionHomeShard(User user) {
+        Long userId = user.getId();
+        shardRouter.runForUser(userId, () -> {
+            if (shardRouter.shardFor(userId) != ShardRouter.DIRECTORY) {
+                userRepository.saveHomeShardCopy(userId, user.getCreatedAt(), user.getUpdatedAt(),
+                        user.getEmail(), user.getPassword(), user.getUsername());
+            }
+
+            if (!userSettingsRepository.existsByUserId(userId)) {
+                UserSettings settings = new UserSettings();
+                settings.setUser(user);
+                userSettingsRepository.save(settings);
+            }
+
+            if (!userStreakRepository.existsByUserId(userId)) {
+                UserStreak streak = new UserStreak();
+                streak.setUser(user);
+                userStreakRepository.save(streak);
+            }
+
+            statsRollupService.ensureRolledUp(userId);
+        });
+    }
 
-        // Delete all related data (cascade)
-        todoRepository.deleteByUserId(userId);
-        tagRepository.deleteByUserId(userId);
-        timeBlockRepository.deleteByUserId(userId);
-        userSettingsRepository.deleteByUserId(userId);
-        userStreakRepository.deleteByUserId(userId);
+    // One lookup on the home shard. The rollup is the last thing provisioning
+    // creates, so once it exists everything before it does too
+    public boolean isHomeShardProvisioned(Long userId) {
+        return shardRouter.callForUser(userId, () -> userLifetimeStatsRepository.existsByUserId(userId));
+    }
 
-        userRepository.delete(user);
+    // Disables the account now, its data is deleted in the background
+    public AccountDeletionResponse deleteUser(Long userId) {
+        return accountDeletionService.requestDeletion(userId);
     }
 
-    @Transactional
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User savedUser = shardRouter.callOnDirectory(() -> userRepository.save(user));
+        provisionHomeShard(savedUser);
+        return savedUser;
     }
 }
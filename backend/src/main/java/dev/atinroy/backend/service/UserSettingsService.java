@@ -18,6 +18,7 @@ public class UserSettingsService {
     private final UserSettingsRepository userSettingsRepository;
     private final UserSettingsMapper userSettingsMapper;
 
+    @Transactional(readOnly = true)
     public UserSettingsResponse getSettingsByUser(Long userId) {
         UserSettings settings = getUserSettings(userId);
         return userSettingsMapper.toResponse(settings);
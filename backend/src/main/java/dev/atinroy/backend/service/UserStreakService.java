@@ -5,20 +5,24 @@ import dev.atinroy.backend.entity.User;
 import dev.atinroy.backend.entity.UserStreak;
 import dev.atinroy.backend.exception.ResourceNotFoundException;
 import dev.atinroy.backend.mapper.UserStreakMapper;
+import dev.atinroy.backend.repository.UserDailyStatsRepository;
 import dev.atinroy.backend.repository.UserStreakRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 
 @Service
 @RequiredArgsConstructor
 public class UserStreakService {
 
     private final UserStreakRepository userStreakRepository;
+    private final UserDailyStatsRepository userDailyStatsRepository;
     private final UserStreakMapper userStreakMapper;
 
+    @Transactional(readOnly = true)
     public StreakResponse getStreakByUser(Long userId) {
         UserStreak streak = getUserStreak(userId);
         return userStreakMapper.toResponse(streak);
@@ -32,6 +36,25 @@ public class UserStreakService {
         return userStreakMapper.toResponse(updatedStreak);
     }
 
+    // Applies several activity days with one read and one write, oldest first.
+    // Days before the last recorded activity, as in backdated imports, cannot be
+    // applied on top of the streak, so it is replayed from the daily rollup, which
+    // callers must have updated with these days first.
+    @Transactional
+    public StreakResponse updateStreakOnActivities(Long userId, Collection<LocalDate> activityDates) {
+        UserStreak streak = getUserStreak(userId);
+        LocalDate lastActivityDate = streak.getLastActivityDate();
+        if (lastActivityDate != null && activityDates.stream().anyMatch(date -> date.isBefore(lastActivityDate))) {
+            streak.rebuildStreak(userDailyStatsRepository.findActiveDatesByUserId(userId));
+        } else {
+            activityDates.stream()
+                    .sorted()
+                    .forEach(streak::updateStreak);
+        }
+        UserStreak updatedStreak = userStreakRepository.save(streak);
+        return userStreakMapper.toResponse(updatedStreak);
+    }
+
     @Transactional
     public StreakResponse resetStreak(Long userId) {
         UserStreak streak = getUserStreak(userId);
@@ -40,6 +63,7 @@ public class UserStreakService {
         return userStreakMapper.toResponse(updatedStreak);
     }
 
+    @Transactional(readOnly = true)
     public boolean isStreakActive(Long userId) {
         UserStreak streak = getUserStreak(userId);
         return streak.isStreakActive();
@@ -0,0 +1,163 @@
+-- Schema as hibernate.ddl-auto=update left it. Databases created by Hibernate
+-- baseline at version 0 and replay this file, so every statement is IF NOT
+-- EXISTS. That only skips objects that exist by name: it never adds a missing
+-- column or turns an existing full index into a partial one, so an adopted
+-- database must already match the schema of the release that created it.
+--
+-- Sequences carry the names Hibernate derives for BaseEntity's unnamed
+-- generator: the entity name in snake case plus _seq.
+
+CREATE SEQUENCE IF NOT EXISTS user_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS tag_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS todo_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS time_block_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS timer_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS user_settings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS user_streak_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS user_daily_stats_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS user_lifetime_stats_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id         BIGINT                      NOT NULL PRIMARY KEY,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    deleted_at TIMESTAMP(6) WITH TIME ZONE,
+    email      VARCHAR(50)                 NOT NULL UNIQUE,
+    password   VARCHAR(50)                 NOT NULL,
+    username   VARCHAR(50)                 NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS tags (
+    id            BIGINT                      NOT NULL PRIMARY KEY,
+    created_at    TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at    TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    deleted_at    TIMESTAMP(6) WITH TIME ZONE,
+    tag_label     VARCHAR(50)                 NOT NULL,
+    tag_hex_color VARCHAR(6)                  NOT NULL,
+    user_id       BIGINT                      NOT NULL REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS todos (
+    id          BIGINT                      NOT NULL PRIMARY KEY,
+    created_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    deleted_at  TIMESTAMP(6) WITH TIME ZONE,
+    user_id     BIGINT                      NOT NULL REFERENCES users (id),
+    title       VARCHAR(255)                NOT NULL,
+    description VARCHAR(1000),
+    tag_id      BIGINT REFERENCES tags (id),
+    completed   BOOLEAN                     NOT NULL,
+    priority    INTEGER
+);
+
+CREATE TABLE IF NOT EXISTS time_blocks (
+    id                       BIGINT                      NOT NULL PRIMARY KEY,
+    created_at               TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at               TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    deleted_at               TIMESTAMP(6) WITH TIME ZONE,
+    user_id                  BIGINT                      NOT NULL REFERENCES users (id),
+    todo_id                  BIGINT REFERENCES todos (id),
+    tag_id                   BIGINT REFERENCES tags (id),
+    purpose                  VARCHAR(20)                 NOT NULL
+        CHECK (purpose IN ('FOCUS', 'SHORT_BREAK', 'LONG_BREAK')),
+    mode                     VARCHAR(20)                 NOT NULL
+        CHECK (mode IN ('TIMER', 'STOPWATCH')),
+    started_at               TIMESTAMP(6)                NOT NULL,
+    ended_at                 TIMESTAMP(6),
+    planned_duration_seconds BIGINT,
+    actual_duration_seconds  BIGINT,
+    completed                BOOLEAN,
+    notes                    VARCHAR(500)
+);
+
+CREATE TABLE IF NOT EXISTS timers (
+    id                  BIGINT                      NOT NULL PRIMARY KEY,
+    created_at          TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at          TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    deleted_at          TIMESTAMP(6) WITH TIME ZONE,
+    duration_in_seconds INTEGER                     NOT NULL,
+    tag_id              BIGINT REFERENCES tags (id),
+    user_id             BIGINT                      NOT NULL REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS user_settings (
+    id                         BIGINT                      NOT NULL PRIMARY KEY,
+    created_at                 TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at                 TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    deleted_at                 TIMESTAMP(6) WITH TIME ZONE,
+    user_id                    BIGINT                      NOT NULL UNIQUE REFERENCES users (id),
+    focus_duration_minutes     INTEGER                     NOT NULL,
+    short_break_minutes        INTEGER                     NOT NULL,
+    long_break_minutes         INTEGER                     NOT NULL,
+    sessions_before_long_break INTEGER                     NOT NULL,
+    sound_enabled              BOOLEAN                     NOT NULL,
+    notifications_enabled      BOOLEAN                     NOT NULL,
+    sound_volume               INTEGER                     NOT NULL,
+    theme                      VARCHAR(10)                 NOT NULL,
+    show_seconds               BOOLEAN                     NOT NULL,
+    auto_start_breaks          BOOLEAN                     NOT NULL,
+    auto_start_focus           BOOLEAN                     NOT NULL,
+    daily_goal_minutes         INTEGER,
+    daily_session_goal         INTEGER
+);
+
+CREATE TABLE IF NOT EXISTS user_streaks (
+    id                 BIGINT                      NOT NULL PRIMARY KEY,
+    created_at         TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at         TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    deleted_at         TIMESTAMP(6) WITH TIME ZONE,
+    user_id            BIGINT                      NOT NULL UNIQUE REFERENCES users (id),
+    current_streak     INTEGER                     NOT NULL,
+    best_streak        INTEGER                     NOT NULL,
+    last_activity_date DATE,
+    streak_start_date  DATE
+);
+
+CREATE TABLE IF NOT EXISTS user_daily_stats (
+    id                BIGINT                      NOT NULL PRIMARY KEY,
+    created_at        TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at        TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    deleted_at        TIMESTAMP(6) WITH TIME ZONE,
+    user_id           BIGINT                      NOT NULL REFERENCES users (id),
+    activity_date     DATE                        NOT NULL,
+    focus_seconds     BIGINT                      NOT NULL,
+    break_seconds     BIGINT                      NOT NULL,
+    session_count     BIGINT                      NOT NULL,
+    completed_timers  BIGINT                      NOT NULL,
+    CONSTRAINT uk_user_daily_stats_user_date UNIQUE (user_id, activity_date)
+);
+
+CREATE TABLE IF NOT EXISTS user_lifetime_stats (
+    id                  BIGINT                      NOT NULL PRIMARY KEY,
+    created_at          TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at          TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    deleted_at          TIMESTAMP(6) WITH TIME ZONE,
+    user_id             BIGINT                      NOT NULL UNIQUE REFERENCES users (id),
+    total_focus_seconds BIGINT                      NOT NULL,
+    session_count       BIGINT                      NOT NULL,
+    active_days         BIGINT                      NOT NULL,
+    last_active_date    DATE
+);
+
+-- Indexes declared on the entities. idx_tag_id was declared on both todos and
+-- time_blocks; index names are schema-wide in Postgres, so only the first one
+-- Hibernate created ever existed.
+
+CREATE INDEX IF NOT EXISTS idx_tags_user_label ON tags (user_id, tag_label) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_tags_user_updated_at ON tags (user_id, updated_at);
+CREATE INDEX IF NOT EXISTS idx_tags_deleted_at ON tags (deleted_at) WHERE deleted_at IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_user_id ON todos (user_id) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_todos_user_created_at ON todos (user_id, created_at) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_todos_user_updated_at ON todos (user_id, updated_at);
+CREATE INDEX IF NOT EXISTS idx_todos_deleted_at ON todos (deleted_at) WHERE deleted_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_tag_id ON todos (tag_id);
+
+CREATE INDEX IF NOT EXISTS idx_user_purpose ON time_blocks (user_id, purpose) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_user_started_at ON time_blocks (user_id, started_at) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_time_blocks_user_updated_at ON time_blocks (user_id, updated_at);
+CREATE INDEX IF NOT EXISTS idx_time_blocks_deleted_at ON time_blocks (deleted_at) WHERE deleted_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_todo_id ON time_blocks (todo_id);
+
+CREATE INDEX IF NOT EXISTS idx_user_settings_user_id ON user_settings (user_id);
+CREATE INDEX IF NOT EXISTS idx_user_streak_user_id ON user_streaks (user_id);
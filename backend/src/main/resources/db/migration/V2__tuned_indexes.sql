@@ -0,0 +1,28 @@
+-- Indexes named per table and shaped after the queries that actually run.
+
+-- idx_tag_id lived on whichever of todos or time_blocks Hibernate created first
+DROP INDEX IF EXISTS idx_tag_id;
+CREATE INDEX idx_todos_tag_id ON todos (tag_id);
+CREATE INDEX idx_time_blocks_tag_id ON time_blocks (tag_id);
+
+ALTER INDEX idx_todo_id RENAME TO idx_time_blocks_todo_id;
+ALTER INDEX idx_user_id RENAME TO idx_todos_user_id;
+ALTER INDEX idx_user_started_at RENAME TO idx_time_blocks_user_started_at;
+
+-- Active block lookup (existsByUserIdAndEndedAtIsNull, findActiveRowByUserId).
+-- At most one block per user is open, so this stays tiny.
+CREATE INDEX idx_time_blocks_user_active ON time_blocks (user_id)
+    WHERE ended_at IS NULL AND deleted_at IS NULL;
+
+-- Focus totals, session counts and per-tag sums filter on user, purpose and a
+-- started_at range and read only the included columns, so they can be answered
+-- with index-only scans. Supersedes idx_user_purpose, which is its prefix.
+CREATE INDEX idx_time_blocks_user_purpose_started_at ON time_blocks (user_id, purpose, started_at)
+    INCLUDE (actual_duration_seconds, tag_id, ended_at)
+    WHERE deleted_at IS NULL;
+DROP INDEX idx_user_purpose;
+
+-- user_settings.user_id and user_streaks.user_id are already covered by their
+-- unique constraints
+DROP INDEX idx_user_settings_user_id;
+DROP INDEX idx_user_streak_user_id;
@@ -0,0 +1,74 @@
+-- time_blocks becomes range partitioned by started_at month. Every stats and
+-- timeline query bounds started_at, so the planner prunes to the months a query
+-- covers and vacuum and index maintenance work one partition at a time.
+--
+-- Postgres requires the partition key in the primary key, so it becomes
+-- (id, started_at). Ids still come from time_block_seq and stay unique.
+
+-- Creates the partition holding the given month, moving any rows that already
+-- landed in the default partition. Returns false if it already exists.
+CREATE OR REPLACE FUNCTION create_time_blocks_partition(month DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    lower_bound    DATE := date_trunc('month', month)::date;
+    upper_bound    DATE := (date_trunc('month', month) + INTERVAL '1 month')::date;
+    partition_name TEXT := 'time_blocks_' || to_char(lower_bound, '"y"YYYY"m"MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE time_blocks INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+    IF to_regclass('time_blocks_default') IS NOT NULL THEN
+        EXECUTE format('WITH moved AS (DELETE FROM time_blocks_default WHERE started_at >= %L AND started_at < %L '
+                       'RETURNING *) INSERT INTO %I SELECT * FROM moved', lower_bound, upper_bound, partition_name);
+    END IF;
+    EXECUTE format('ALTER TABLE time_blocks ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, lower_bound, upper_bound);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE time_blocks RENAME TO time_blocks_unpartitioned;
+ALTER TABLE time_blocks_unpartitioned RENAME CONSTRAINT time_blocks_pkey TO time_blocks_unpartitioned_pkey;
+
+CREATE TABLE time_blocks (LIKE time_blocks_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (started_at);
+ALTER TABLE time_blocks ADD CONSTRAINT time_blocks_pkey PRIMARY KEY (id, started_at);
+ALTER TABLE time_blocks ADD CONSTRAINT fk_time_blocks_user FOREIGN KEY (user_id) REFERENCES users (id);
+ALTER TABLE time_blocks ADD CONSTRAINT fk_time_blocks_todo FOREIGN KEY (todo_id) REFERENCES todos (id);
+ALTER TABLE time_blocks ADD CONSTRAINT fk_time_blocks_tag FOREIGN KEY (tag_id) REFERENCES tags (id);
+
+-- One partition per month of existing data plus three ahead. Anything outside
+-- lands in the default partition until its month is created.
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    FOR month IN
+        SELECT generate_series(
+                       date_trunc('month', COALESCE((SELECT min(started_at) FROM time_blocks_unpartitioned), now())),
+                       date_trunc('month', now()) + INTERVAL '3 months',
+                       INTERVAL '1 month')::date
+    LOOP
+        PERFORM create_time_blocks_partition(month);
+    END LOOP;
+END;
+$$;
+CREATE TABLE time_blocks_default PARTITION OF time_blocks DEFAULT;
+
+INSERT INTO time_blocks SELECT * FROM time_blocks_unpartitioned;
+DROP TABLE time_blocks_unpartitioned;
+
+-- Indexes from V2, now partitioned indexes cascading to every partition
+CREATE INDEX idx_time_blocks_user_started_at ON time_blocks (user_id, started_at) WHERE deleted_at IS NULL;
+CREATE INDEX idx_time_blocks_user_purpose_started_at ON time_blocks (user_id, purpose, started_at)
+    INCLUDE (actual_duration_seconds, tag_id, ended_at)
+    WHERE deleted_at IS NULL;
+CREATE INDEX idx_time_blocks_user_active ON time_blocks (user_id)
+    WHERE ended_at IS NULL AND deleted_at IS NULL;
+CREATE INDEX idx_time_blocks_user_updated_at ON time_blocks (user_id, updated_at);
+CREATE INDEX idx_time_blocks_deleted_at ON time_blocks (deleted_at) WHERE deleted_at IS NOT NULL;
+CREATE INDEX idx_time_blocks_todo_id ON time_blocks (todo_id);
+CREATE INDEX idx_time_blocks_tag_id ON time_blocks (tag_id);
+
+ANALYZE time_blocks;
@@ -0,0 +1,39 @@
+-- Cold tier for ended blocks older than the hot window (app.archive.after).
+-- Archived rows are never updated or soft deleted, so they drop updated_at and
+-- deleted_at, pack tightly (fillfactor 100) and carry a single read index
+-- besides the foreign key ones.
+
+CREATE TABLE time_blocks_archive (
+    id                       BIGINT                      NOT NULL PRIMARY KEY,
+    created_at               TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    archived_at              TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    user_id                  BIGINT                      NOT NULL REFERENCES users (id),
+    todo_id                  BIGINT REFERENCES todos (id),
+    tag_id                   BIGINT REFERENCES tags (id),
+    purpose                  VARCHAR(20)                 NOT NULL
+        CHECK (purpose IN ('FOCUS', 'SHORT_BREAK', 'LONG_BREAK')),
+    mode                     VARCHAR(20)                 NOT NULL
+        CHECK (mode IN ('TIMER', 'STOPWATCH')),
+    started_at               TIMESTAMP(6)                NOT NULL,
+    ended_at                 TIMESTAMP(6)                NOT NULL,
+    planned_duration_seconds BIGINT,
+    actual_duration_seconds  BIGINT,
+    completed                BOOLEAN,
+    notes                    VARCHAR(500)
+) WITH (fillfactor = 100);
+
+CREATE INDEX idx_time_blocks_archive_user_started_at ON time_blocks_archive (user_id, started_at);
+CREATE INDEX idx_time_blocks_archive_todo_id ON time_blocks_archive (todo_id);
+CREATE INDEX idx_time_blocks_archive_tag_id ON time_blocks_archive (tag_id);
+
+-- Hot and archived blocks with the time_blocks columns, for native queries whose
+-- range reaches past the hot window. Predicates push down into both branches,
+-- so partition pruning still applies to the hot side.
+CREATE VIEW time_blocks_with_archive AS
+SELECT id, created_at, updated_at, deleted_at, user_id, todo_id, tag_id, purpose, mode, started_at, ended_at,
+       planned_duration_seconds, actual_duration_seconds, completed, notes
+FROM time_blocks
+UNION ALL
+SELECT id, created_at, archived_at, CAST(NULL AS TIMESTAMP(6) WITH TIME ZONE), user_id, todo_id, tag_id, purpose,
+       mode, started_at, ended_at, planned_duration_seconds, actual_duration_seconds, completed, notes
+FROM time_blocks_archive;
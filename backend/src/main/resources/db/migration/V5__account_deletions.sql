@@ -0,0 +1,29 @@
+-- Account deletions run in the background in bounded chunks, see
+-- AccountDeletionService. One row per request tracks where a deletion stands so
+-- it can resume after a restart; no foreign key to users, it outlives the account.
+
+CREATE SEQUENCE account_deletion_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE account_deletions (
+    id           BIGINT                      NOT NULL PRIMARY KEY,
+    created_at   TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at   TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    deleted_at   TIMESTAMP(6) WITH TIME ZONE,
+    token        UUID                        NOT NULL UNIQUE,
+    user_id      BIGINT                      NOT NULL,
+    status       VARCHAR(20)                 NOT NULL
+        CHECK (status IN ('PENDING', 'IN_PROGRESS', 'COMPLETED')),
+    step         VARCHAR(30)                 NOT NULL
+        CHECK (step IN ('TIMERS', 'TIME_BLOCKS', 'ARCHIVED_TIME_BLOCKS', 'TODOS', 'TAGS', 'USER_SETTINGS',
+                        'USER_STREAKS', 'USER_DAILY_STATS', 'USER_LIFETIME_STATS', 'USER')),
+    deleted_rows BIGINT                      NOT NULL,
+    lease_until  TIMESTAMP(6) WITH TIME ZONE,
+    completed_at TIMESTAMP(6) WITH TIME ZONE
+);
+
+-- At most one open deletion per user, and the open ones for the job to poll
+CREATE UNIQUE INDEX idx_account_deletions_open_user_id ON account_deletions (user_id)
+    WHERE status <> 'COMPLETED';
+
+-- The chunked deletes select a user's rows by user_id; timers had no index for it
+CREATE INDEX idx_timers_user_id ON timers (user_id);
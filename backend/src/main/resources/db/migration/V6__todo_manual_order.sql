@@ -0,0 +1,41 @@
+-- Manual ordering of todos by rank keys, see RankKeys. A move gives the todo a key
+-- between its new neighbours, so it rewrites one row however long the list is.
+-- Keys are compared byte by byte, hence the "C" collation.
+
+ALTER TABLE todos ADD COLUMN sort_key VARCHAR(255) COLLATE "C";
+
+-- Existing todos keep the order of the priority list: incomplete first, then by
+-- priority, newest first. Keys are the same as RankKeys.spaced: the rank as a
+-- base-62 integer, prefixed with its length in digits ('a' one, 'b' two...).
+CREATE FUNCTION pg_temp.rank_key(rank BIGINT) RETURNS TEXT AS $$
+DECLARE
+    digits CONSTANT TEXT := '0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz';
+    encoded TEXT := '';
+    remaining BIGINT := rank;
+BEGIN
+    LOOP
+        encoded := substr(digits, CAST(remaining % 62 AS INT) + 1, 1) || encoded;
+        remaining := remaining / 62;
+        EXIT WHEN remaining = 0;
+    END LOOP;
+    RETURN chr(ascii('a') + length(encoded) - 1) || encoded;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+UPDATE todos t
+SET sort_key = pg_temp.rank_key(ranked.rank)
+FROM (SELECT id,
+             row_number() OVER (PARTITION BY user_id
+                 ORDER BY completed, priority ASC NULLS LAST, created_at DESC, id) - 1 AS rank
+      FROM todos) ranked
+WHERE t.id = ranked.id;
+
+ALTER TABLE todos ALTER COLUMN sort_key SET NOT NULL;
+
+-- The manually ordered list of incomplete todos, read straight off the index
+CREATE INDEX idx_todos_user_sort_key ON todos (user_id, sort_key, id)
+    WHERE deleted_at IS NULL AND completed = false;
+
+-- Users whose keys grew past the rebalancing threshold, see TodoRebalanceService
+CREATE INDEX idx_todos_sort_key_length ON todos (length(sort_key))
+    WHERE deleted_at IS NULL;
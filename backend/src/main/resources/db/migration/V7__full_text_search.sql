@@ -0,0 +1,56 @@
+-- Full-text search over todo titles and descriptions and time block notes, see
+-- SearchRepository. Each table gets a stored tsvector, kept in sync by Postgres on
+-- every write, and a GIN index on (user_id, search_vector) so a search only walks
+-- the posting lists of one user. The 'simple' configuration lowercases without
+-- stemming, which keeps prefix matches on partly typed words exact.
+
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+ALTER TABLE todos ADD COLUMN search_vector TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', coalesce(title, '')), 'A')
+        || setweight(to_tsvector('simple', coalesce(description, '')), 'B')) STORED;
+
+CREATE INDEX idx_todos_search ON todos USING GIN (user_id, search_vector) WHERE deleted_at IS NULL;
+
+-- Cascades to every partition, and to new ones through the function below
+ALTER TABLE time_blocks ADD COLUMN search_vector TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', coalesce(notes, '')), 'B')) STORED;
+
+CREATE INDEX idx_time_blocks_search ON time_blocks USING GIN (user_id, search_vector) WHERE deleted_at IS NULL;
+
+ALTER TABLE time_blocks_archive ADD COLUMN search_vector TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', coalesce(notes, '')), 'B')) STORED;
+
+CREATE INDEX idx_time_blocks_archive_search ON time_blocks_archive USING GIN (user_id, search_vector);
+
+-- Same as V3, except that a new partition copies the generated column, which
+-- ATTACH PARTITION requires, and rows moved out of the default partition leave it
+-- out, since it cannot be inserted into.
+CREATE OR REPLACE FUNCTION create_time_blocks_partition(month DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    lower_bound    DATE := date_trunc('month', month)::date;
+    upper_bound    DATE := (date_trunc('month', month) + INTERVAL '1 month')::date;
+    partition_name TEXT := 'time_blocks_' || to_char(lower_bound, '"y"YYYY"m"MM');
+    stored_columns TEXT;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE time_blocks INCLUDING DEFAULTS INCLUDING CONSTRAINTS '
+                   'INCLUDING GENERATED)', partition_name);
+    IF to_regclass('time_blocks_default') IS NOT NULL THEN
+        SELECT string_agg(quote_ident(attname), ', ' ORDER BY attnum)
+        INTO stored_columns
+        FROM pg_attribute
+        WHERE attrelid = 'time_blocks'::regclass AND attnum > 0 AND NOT attisdropped AND attgenerated = '';
+
+        EXECUTE format('WITH moved AS (DELETE FROM time_blocks_default WHERE started_at >= %L AND started_at < %L '
+                       'RETURNING %s) INSERT INTO %I (%s) SELECT * FROM moved',
+                       lower_bound, upper_bound, stored_columns, partition_name, stored_columns);
+    END IF;
+    EXECUTE format('ALTER TABLE time_blocks ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, lower_bound, upper_bound);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,13 @@
+-- Tags join full-text search, see SearchRepository. Same setup as the todos in
+-- V7: a stored tsvector over the label and a GIN index on (user_id,
+-- search_vector) over live rows.
+--
+-- V7 says these indexes only walk one user's posting lists. They do not: a
+-- multi-column GIN index keeps each column's entries apart, so a term's posting
+-- list covers every user and is intersected with the user id's list during the
+-- scan.
+
+ALTER TABLE tags ADD COLUMN search_vector TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', tag_label), 'A')) STORED;
+
+CREATE INDEX idx_tags_search ON tags USING GIN (user_id, search_vector) WHERE deleted_at IS NULL;
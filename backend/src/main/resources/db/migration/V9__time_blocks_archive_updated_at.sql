@@ -0,0 +1,21 @@
+-- Archived blocks do change after all: a tag merge retags them, see
+-- ArchivedTimeBlockRepository.reassignTag. Delta sync needs to see that, so the
+-- archive gets the updated_at V4 left out. Archiving carries the hot row's
+-- value over, so moving a block alone does not send it to clients again.
+
+ALTER TABLE time_blocks_archive ADD COLUMN updated_at TIMESTAMP(6) WITH TIME ZONE;
+
+UPDATE time_blocks_archive SET updated_at = archived_at;
+
+ALTER TABLE time_blocks_archive ALTER COLUMN updated_at SET NOT NULL;
+
+CREATE INDEX idx_time_blocks_archive_user_updated_at ON time_blocks_archive (user_id, updated_at);
+
+CREATE OR REPLACE VIEW time_blocks_with_archive AS
+SELECT id, created_at, updated_at, deleted_at, user_id, todo_id, tag_id, purpose, mode, started_at, ended_at,
+       planned_duration_seconds, actual_duration_seconds, completed, notes
+FROM time_blocks
+UNION ALL
+SELECT id, created_at, updated_at, CAST(NULL AS TIMESTAMP(6) WITH TIME ZONE), user_id, todo_id, tag_id, purpose,
+       mode, started_at, ended_at, planned_duration_seconds, actual_duration_seconds, completed, notes
+FROM time_blocks_archive;
@@ -0,0 +1,98 @@
+package dev.atinroy.backend.config;
+
+import dev.atinroy.backend.security.UserDetailsImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks where read-only transactions are sent, with the local database
+ * registered a second time as a replica. Its own pool stands in for a
+ * separate instance: not being in recovery, it always reports no lag.
+ * <p>
+ * Pointing {@code app.datasource.replica-urls} at a real standby runs the
+ * same checks against streaming replication.
+ */
+@SpringBootTest(properties = "app.datasource.replica-urls=${spring.datasource.url}")
+class ReplicaRoutingTest {
+
+    @Autowired
+    private ReplicaRouter replicaRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToACaughtUpReplica() {
+        replicaRouter.checkReplicaLag();
+        authenticateAs(-1L);
+
+        double replicaReads = reads("replica-1");
+        double primaryReads = reads("primary");
+        read();
+
+        assertEquals(replicaReads + 1, reads("replica-1"));
+        assertEquals(primaryReads, reads("primary"));
+        assertEquals(0.0, meterRegistry.get("app.datasource.replica.lag").gauge().value());
+    }
+
+    @Test
+    void readsAfterAWriteStayOnThePrimary() {
+        replicaRouter.checkReplicaLag();
+        authenticateAs(-2L);
+
+        // Any committed read-write transaction counts as a write
+        TransactionTemplate write = new TransactionTemplate(transactionManager);
+        write.executeWithoutResult(status -> jdbcTemplate.queryForObject("SELECT 1", Integer.class));
+
+        double replicaReads = reads("replica-1");
+        double primaryReads = reads("primary");
+        read();
+
+        assertEquals(replicaReads, reads("replica-1"));
+        assertEquals(primaryReads + 1, reads("primary"));
+
+        // Other users are unaffected
+        authenticateAs(-3L);
+        read();
+        assertEquals(replicaReads + 1, reads("replica-1"));
+    }
+
+    private void read() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> jdbcTemplate.queryForObject("SELECT 1", Integer.class));
+    }
+
+    private double reads(String target) {
+        return meterRegistry.get("app.datasource.reads").tag("target", target).counter().count();
+    }
+
+    private static void authenticateAs(Long userId) {
+        UserDetailsImpl user = new UserDetailsImpl(userId, "user" + userId, "user" + userId + "@example.com", "");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+}
@@ -0,0 +1,51 @@
+package dev.atinroy.backend.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the placement of users on shards: stable, roughly even, and only
+ * moving users onto a newly added shard.
+ */
+class ShardRingTest {
+
+    private static final int USERS = 100_000;
+
+    private static final int VIRTUAL_NODES = 128;
+
+    @Test
+    void spreadsUsersEvenly() {
+        ShardRing ring = new ShardRing(4, VIRTUAL_NODES);
+        int[] users = new int[4];
+        for (long userId = 1; userId <= USERS; userId++) {
+            users[ring.shardFor(userId)]++;
+        }
+        for (int count : users) {
+            assertTrue(Math.abs(count - USERS / 4) < USERS / 4 * 0.2, "users per shard " + count);
+        }
+    }
+
+    @Test
+    void addingAShardOnlyMovesUsersOntoIt() {
+        ShardRing before = new ShardRing(4, VIRTUAL_NODES);
+        ShardRing after = new ShardRing(5, VIRTUAL_NODES);
+        int moved = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            int from = before.shardFor(userId);
+            int to = after.shardFor(userId);
+            if (from != to) {
+                assertEquals(4, to, "user " + userId + " moved between existing shards");
+                moved++;
+            }
+        }
+        assertTrue(Math.abs(moved - USERS / 5) < USERS / 5 * 0.2, "users moved " + moved);
+    }
+
+    @Test
+    void placementIsStable() {
+        assertEquals(new ShardRing(3, VIRTUAL_NODES).shardFor(42L), new ShardRing(3, VIRTUAL_NODES).shardFor(42L));
+        assertEquals(0, new ShardRing(1, VIRTUAL_NODES).shardFor(42L));
+    }
+}
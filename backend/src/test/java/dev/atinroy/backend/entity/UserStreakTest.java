@@ -0,0 +1,41 @@
+package dev.atinroy.backend.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that a streak replayed from history counts days that arrived after
+ * later ones, as backdated imports do.
+ */
+class UserStreakTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 10);
+
+    @Test
+    void backdatedDaysAreIgnoredIncrementallyButCountOnRebuild() {
+        UserStreak streak = new UserStreak();
+        streak.updateStreak(DAY);
+        streak.updateStreak(DAY.minusDays(1));
+        assertEquals(1, streak.getCurrentStreak());
+
+        streak.rebuildStreak(List.of(DAY, DAY.minusDays(1), DAY.minusDays(2)));
+        assertEquals(3, streak.getCurrentStreak());
+        assertEquals(3, streak.getBestStreak());
+        assertEquals(DAY.minusDays(2), streak.getStreakStartDate());
+        assertEquals(DAY, streak.getLastActivityDate());
+    }
+
+    @Test
+    void rebuildKeepsTheBestStreakRecorded() {
+        UserStreak streak = new UserStreak();
+        streak.setBestStreak(7);
+
+        streak.rebuildStreak(List.of(DAY.minusDays(5), DAY));
+        assertEquals(1, streak.getCurrentStreak());
+        assertEquals(7, streak.getBestStreak());
+    }
+}
@@ -0,0 +1,29 @@
+package dev.atinroy.backend.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every SQL statement Hibernate prepares, for the tests that explain
+ * the queries repositories issue.
+ * <p>
+ * Hibernate instantiates the inspector itself from the
+ * hibernate.session_factory.statement_inspector property, so the statements
+ * are kept in a static list. Tests clear it before running the queries they
+ * want to look at.
+ */
+public class CapturingStatementInspector implements StatementInspector {
+
+    static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "dev.atinroy.backend.repository.CapturingStatementInspector";
+
+    static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,246 @@
+package dev.atinroy.backend.repository;
+
+import dev.atinroy.backend.dto.stats.StatsDimension;
+import dev.atinroy.backend.dto.timeblock.TimeBlockFilter;
+import dev.atinroy.backend.entity.BlockPurpose;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs every read query declared on the application's repositories against the
+ * local Postgres database and fails if any of them plans a sequential scan.
+ * <p>
+ * Sequential scans are disabled for the EXPLAIN session, so the planner only
+ * falls back to one when no index can serve the query. Plans are generic
+ * (Postgres 16+), which lets the captured SQL be explained with its bind
+ * parameters left open.
+ */
+@SpringBootTest(properties = CapturingStatementInspector.PROPERTY)
+class RepositoryQueryPlanTest {
+
+    private static final List<String> QUERY_PREFIXES = List.of("find", "get", "count", "exists");
+
+    private static final Pattern BIND_PARAMETER = Pattern.compile("\\?");
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void repositoryQueriesDoNotUseSequentialScans() {
+        List<String> failures = new ArrayList<>();
+
+        for (Object repository : applicationContext.getBeansOfType(JpaRepository.class).values()) {
+            for (Class<?> repositoryInterface : AopProxyUtils.proxiedUserInterfaces(repository)) {
+                if (!repositoryInterface.getPackageName().startsWith("dev.atinroy.backend")) {
+                    continue;
+                }
+                for (Method method : repositoryInterface.getDeclaredMethods()) {
+                    if (isReadQuery(method)) {
+                        failures.addAll(checkPlans(repository, repositoryInterface, method));
+                    }
+                }
+            }
+        }
+
+        assertTrue(failures.isEmpty(), "Queries falling back to sequential scans:\n" + String.join("\n", failures));
+    }
+
+    // The custom time block queries build their SQL from a filter or a set of
+    // dimensions, so the reflective pass above cannot reach them. They run here
+    // with every option switched on, which makes for the widest query each builds.
+    @Test
+    void customTimeBlockQueriesDoNotUseSequentialScans() {
+        TimeBlockRepository timeBlockRepository = applicationContext.getBean(TimeBlockRepository.class);
+        TimeBlockFilter filter = new TimeBlockFilter();
+        filter.setStartDate(LocalDateTime.now().minusDays(7));
+        filter.setEndDate(LocalDateTime.now());
+        filter.setPurpose(BlockPurpose.FOCUS);
+        filter.setTagId(1L);
+        filter.setTodoId(1L);
+        filter.setLimit(10);
+        LocalDateTime from = LocalDateTime.now().minusMonths(1);
+        LocalDateTime until = LocalDateTime.now();
+
+        List<String> failures = new ArrayList<>();
+        failures.addAll(checkPlans("TimeBlockRepository.search",
+                () -> timeBlockRepository.search(1L, filter)));
+        failures.addAll(checkPlans("TimeBlockRepository.searchArchived",
+                () -> timeBlockRepository.searchArchived(1L, filter)));
+        failures.addAll(checkPlans("TimeBlockRepository.aggregateStats",
+                () -> timeBlockRepository.aggregateStats(1L, from, until, EnumSet.allOf(StatsDimension.class), true)));
+
+        assertTrue(failures.isEmpty(), "Queries falling back to sequential scans:\n" + String.join("\n", failures));
+    }
+
+    // SearchRepository goes through JdbcTemplate, out of the statement inspector's
+    // sight, so its SQL is explained as written
+    @Test
+    void searchQueriesDoNotUseSequentialScans() {
+        List<String> failures = new ArrayList<>();
+        failures.addAll(checkPlan("SearchRepository.findFirstPage", SearchRepository.FIRST_PAGE));
+        failures.addAll(checkPlan("SearchRepository.findPageAfter", SearchRepository.PAGE_AFTER));
+
+        assertTrue(failures.isEmpty(), "Queries falling back to sequential scans:\n" + String.join("\n", failures));
+    }
+
+    private List<String> checkPlans(Object repository, Class<?> repositoryInterface, Method method) {
+        String queryName = repositoryInterface.getSimpleName() + "." + method.getName();
+        List<String> failures = new ArrayList<>();
+
+        Object[] arguments = new Object[method.getParameterCount()];
+        Type[] parameterTypes = method.getGenericParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            arguments[i] = sampleArgument(parameterTypes[i]);
+            if (arguments[i] == null) {
+                failures.add(queryName + ": no sample argument for " + parameterTypes[i].getTypeName());
+                return failures;
+            }
+        }
+
+        return checkPlans(queryName, () -> {
+            try {
+                method.invoke(repository, arguments);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("invocation failed: " + e.getCause(), e);
+            }
+        });
+    }
+
+    // Runs the query and explains every SELECT it issued
+    private List<String> checkPlans(String queryName, Runnable query) {
+        List<String> failures = new ArrayList<>();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            CapturingStatementInspector.STATEMENTS.clear();
+            try {
+                query.run();
+            } catch (RuntimeException e) {
+                failures.add(queryName + ": " + e.getMessage());
+                return;
+            }
+
+            for (String sql : List.copyOf(CapturingStatementInspector.STATEMENTS)) {
+                if (!sql.trim().toLowerCase().startsWith("select")) {
+                    continue;
+                }
+                String plan = explain(sql);
+                if (plan.contains("Seq Scan")) {
+                    failures.add(queryName + ":\n" + plan);
+                }
+            }
+        });
+
+        return failures;
+    }
+
+    private List<String> checkPlan(String queryName, String sql) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String plan = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return explain(sql);
+        });
+        return plan.contains("Seq Scan") ? List.of(queryName + ":\n" + plan) : List.of();
+    }
+
+    private String explain(String sql) {
+        Matcher matcher = BIND_PARAMETER.matcher(sql);
+        StringBuilder numbered = new StringBuilder();
+        int index = 0;
+        while (matcher.find()) {
+            matcher.appendReplacement(numbered, "\\$" + (++index));
+        }
+        matcher.appendTail(numbered);
+
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        return String.join("\n",
+                jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + numbered, String.class));
+    }
+
+    private static boolean isReadQuery(Method method) {
+        return !method.isSynthetic()
+                && !method.isAnnotationPresent(Modifying.class)
+                && QUERY_PREFIXES.stream().anyMatch(method.getName()::startsWith);
+    }
+
+    // Collections get a single sample of their element type
+    private static Object sampleArgument(Type type) {
+        if (type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() instanceof Class<?> rawType
+                && Collection.class.isAssignableFrom(rawType)) {
+            Object element = sampleArgument(parameterized.getActualTypeArguments()[0]);
+            return element != null ? List.of(element) : null;
+        }
+        return type instanceof Class<?> clazz ? sampleArgument(clazz) : null;
+    }
+
+    private static Object sampleArgument(Class<?> type) {
+        if (type == Long.class || type == long.class) {
+            return 1L;
+        }
+        if (type == Integer.class || type == int.class) {
+            return 1;
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return Boolean.FALSE;
+        }
+        if (type == String.class) {
+            return "sample";
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.now();
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (type == Instant.class) {
+            return Instant.now();
+        }
+        if (type == UUID.class) {
+            return UUID.randomUUID();
+        }
+        if (type.isEnum()) {
+            return type.getEnumConstants()[0];
+        }
+        if (Pageable.class.isAssignableFrom(type)) {
+            return PageRequest.of(0, 10);
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return List.of(1L);
+        }
+        return null;
+    }
+}
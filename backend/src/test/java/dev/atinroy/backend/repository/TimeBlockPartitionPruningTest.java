@@ -0,0 +1,108 @@
+package dev.atinroy.backend.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the time-bounded time block queries prune the partitioned
+ * time_blocks table down to the months they cover.
+ * <p>
+ * The SQL each repository method issues is captured, prepared and explained
+ * with concrete bind values, so the plan shows the partitions that survive
+ * pruning. Every range here is one calendar month, which must resolve to that
+ * month's partition alone.
+ */
+@SpringBootTest(properties = CapturingStatementInspector.PROPERTY)
+class TimeBlockPartitionPruningTest {
+
+    private static final Pattern BIND_PARAMETER = Pattern.compile("\\?");
+
+    private static final Pattern PARTITION = Pattern.compile("time_blocks_(y\\d{4}m\\d{2}|default)");
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+
+    @Autowired
+    private TimeBlockRepository timeBlockRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void rangeQueriesOnlyScanTheMonthTheyCover() {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        LocalDateTime from = month.atStartOfDay();
+        LocalDateTime until = month.plusMonths(1).atStartOfDay();
+        Set<String> expected = Set.of("time_blocks_" + month.format(PARTITION_SUFFIX));
+
+        assertEquals(expected, scannedPartitions(
+                () -> timeBlockRepository.getTotalFocusTimeByUserIdAndStartedAtInRange(1L, from, until),
+                1L, from, until));
+        assertEquals(expected, scannedPartitions(
+                () -> timeBlockRepository.countFocusSessionsByUserIdAndStartedAtInRange(1L, from, until),
+                1L, from, until));
+        assertEquals(expected, scannedPartitions(
+                () -> timeBlockRepository.getFocusTimeByTagAndDateRange(1L, from, until),
+                1L, from, until));
+        assertEquals(expected, scannedPartitions(
+                () -> timeBlockRepository.getDailyTotalsByUserIdAndStartedAtInRange(1L, from, until),
+                1L, from, until));
+        assertEquals(expected, scannedPartitions(
+                () -> timeBlockRepository.findTimelineByUserIdAndStartedAtInRange(1L, from, until),
+                1L, from, until));
+    }
+
+    // Runs the query, then explains its SQL with the given values bound in order
+    private Set<String> scannedPartitions(Runnable query, Object... bindValues) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        return transactionTemplate.execute(status -> {
+            CapturingStatementInspector.STATEMENTS.clear();
+            query.run();
+            List<String> statements = List.copyOf(CapturingStatementInspector.STATEMENTS);
+            String sql = statements.get(statements.size() - 1);
+
+            Matcher matcher = BIND_PARAMETER.matcher(sql);
+            StringBuilder numbered = new StringBuilder();
+            int index = 0;
+            while (matcher.find()) {
+                matcher.appendReplacement(numbered, "\\$" + (++index));
+            }
+            matcher.appendTail(numbered);
+            assertEquals(bindValues.length, index, "bind parameters in " + sql);
+
+            List<String> literals = new ArrayList<>();
+            for (Object value : bindValues) {
+                literals.add("'" + value + "'");
+            }
+
+            jdbcTemplate.execute("PREPARE pruning_check AS " + numbered);
+            List<String> plan = jdbcTemplate.queryForList(
+                    "EXPLAIN EXECUTE pruning_check(" + String.join(", ", literals) + ")", String.class);
+            jdbcTemplate.execute("DEALLOCATE pruning_check");
+            status.setRollbackOnly();
+
+            return plan.stream()
+                    .flatMap(line -> PARTITION.matcher(line).results().map(Matcher::group))
+                    .collect(Collectors.toCollection(TreeSet::new));
+        });
+    }
+}
@@ -0,0 +1,154 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.dto.stats.PeriodStatsResponse;
+import dev.atinroy.backend.entity.BlockMode;
+import dev.atinroy.backend.entity.BlockPurpose;
+import dev.atinroy.backend.entity.TimeBlock;
+import dev.atinroy.backend.entity.User;
+import dev.atinroy.backend.repository.TimeBlockRepository;
+import dev.atinroy.backend.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that period stats aggregated in SQL, both straight from the time blocks
+ * and from the daily rollup, match the original in-memory computation over the
+ * same randomly generated blocks.
+ */
+@SpringBootTest
+@Transactional
+class PeriodStatsTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 3, 1);
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private StatsRollupService statsRollupService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TimeBlockRepository timeBlockRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void sqlAggregatesMatchInMemoryComputation() {
+        User user = createUser();
+        List<TimeBlock> timeBlocks = generateTimeBlocks(user, new Random(42), 400);
+        entityManager.flush();
+
+        LocalDate startDate = FIRST_DAY.plusDays(5);
+        LocalDate endDate = FIRST_DAY.plusDays(35);
+        PeriodStatsResponse expected = legacyPeriodStats(timeBlocks, startDate, endDate);
+
+        // Not rolled up yet, aggregated from time_blocks
+        assertEquals(expected, statsService.getPeriodStats(user.getId(), startDate, endDate));
+
+        // Rolled up, folded from user_daily_stats
+        statsRollupService.rebuild(user.getId());
+        entityManager.flush();
+        assertEquals(expected, statsService.getPeriodStats(user.getId(), startDate, endDate));
+    }
+
+    private User createUser() {
+        String name = UUID.randomUUID().toString().substring(0, 20);
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+
+    private List<TimeBlock> generateTimeBlocks(User user, Random random, int count) {
+        List<TimeBlock> timeBlocks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TimeBlock timeBlock = new TimeBlock();
+            timeBlock.setUser(user);
+            timeBlock.setPurpose(BlockPurpose.values()[random.nextInt(BlockPurpose.values().length)]);
+            if (random.nextBoolean()) {
+                timeBlock.setMode(BlockMode.TIMER);
+                timeBlock.setPlannedDurationSeconds(1500L);
+            } else {
+                timeBlock.setMode(BlockMode.STOPWATCH);
+            }
+
+            LocalDateTime startedAt = FIRST_DAY.atStartOfDay()
+                    .plusDays(random.nextInt(45))
+                    .plusSeconds(random.nextInt(24 * 60 * 60));
+            timeBlock.setStartedAt(startedAt);
+            if (random.nextInt(20) != 0) {
+                timeBlock.setEndedAt(startedAt.plusSeconds(60 + random.nextInt(3600)));
+            }
+
+            timeBlocks.add(timeBlockRepository.save(timeBlock));
+        }
+        return timeBlocks;
+    }
+
+    // The original StatsService.getPeriodStats, which streamed the period's entities
+    private static PeriodStatsResponse legacyPeriodStats(List<TimeBlock> allTimeBlocks, LocalDate startDate,
+            LocalDate endDate) {
+        LocalDateTime startDateTime = startDate.atStartOfDay();
+        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
+        List<TimeBlock> timeBlocks = allTimeBlocks.stream()
+                .filter(tb -> !tb.getStartedAt().isBefore(startDateTime) && !tb.getStartedAt().isAfter(endDateTime))
+                .filter(tb -> tb.getEndedAt() != null)
+                .collect(Collectors.toList());
+
+        long totalFocusTimeSeconds = timeBlocks.stream()
+                .filter(tb -> tb.getPurpose() == BlockPurpose.FOCUS && tb.getActualDurationSeconds() != null)
+                .mapToLong(TimeBlock::getActualDurationSeconds)
+                .sum();
+
+        long totalSessions = timeBlocks.stream()
+                .filter(tb -> tb.getPurpose() == BlockPurpose.FOCUS && tb.getEndedAt() != null)
+                .count();
+
+        long activeDays = timeBlocks.stream()
+                .filter(tb -> tb.getPurpose() == BlockPurpose.FOCUS && tb.getEndedAt() != null)
+                .map(tb -> tb.getStartedAt().toLocalDate())
+                .distinct()
+                .count();
+
+        Double averageSessionDuration = totalSessions > 0 ? (double) totalFocusTimeSeconds / totalSessions : 0.0;
+
+        Map<LocalDate, Long> dailyFocusTime = timeBlocks.stream()
+                .filter(tb -> tb.getPurpose() == BlockPurpose.FOCUS && tb.getActualDurationSeconds() != null)
+                .collect(Collectors.groupingBy(
+                        tb -> tb.getStartedAt().toLocalDate(),
+                        Collectors.summingLong(TimeBlock::getActualDurationSeconds)));
+
+        LocalDate bestDay = null;
+        Long bestDayFocusTime = 0L;
+        for (Map.Entry<LocalDate, Long> entry : dailyFocusTime.entrySet()) {
+            if (entry.getValue() > bestDayFocusTime) {
+                bestDay = entry.getKey();
+                bestDayFocusTime = entry.getValue();
+            }
+        }
+
+        return new PeriodStatsResponse(startDate, endDate, totalFocusTimeSeconds, totalSessions, activeDays,
+                averageSessionDuration, bestDay, bestDayFocusTime);
+    }
+}
@@ -0,0 +1,63 @@
+package dev.atinroy.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that rank keys always fit between their neighbours and stay short for
+ * the common ways a list grows.
+ */
+class RankKeysTest {
+
+    @Test
+    void spacedKeysAscend() {
+        List<String> keys = RankKeys.spaced(5000);
+        assertEquals("a0", keys.get(0));
+        assertEquals("b10", keys.get(62));
+        assertAscending(keys);
+    }
+
+    @Test
+    void keysFitBetweenAnyNeighbours() {
+        Random random = new Random(42);
+        List<String> keys = new ArrayList<>(RankKeys.spaced(100));
+        for (int move = 0; move < 20_000; move++) {
+            int position = random.nextInt(keys.size() + 1);
+            String before = position > 0 ? keys.get(position - 1) : null;
+            String after = position < keys.size() ? keys.get(position) : null;
+            keys.add(position, RankKeys.between(before, after));
+        }
+        assertAscending(keys);
+    }
+
+    @Test
+    void appendingAndPrependingKeepKeysShort() {
+        String last = null;
+        String first = null;
+        for (int i = 0; i < 100_000; i++) {
+            last = RankKeys.between(last, null);
+            first = RankKeys.between(null, first);
+        }
+        assertTrue(last.length() <= 4, "appended key " + last);
+        assertTrue(first.length() <= 4, "prepended key " + first);
+    }
+
+    @Test
+    void rejectsNeighboursOutOfOrder() {
+        assertThrows(IllegalArgumentException.class, () -> RankKeys.between("a5", "a5"));
+        assertThrows(IllegalArgumentException.class, () -> RankKeys.between("a6", "a5"));
+    }
+
+    private static void assertAscending(List<String> keys) {
+        for (int i = 1; i < keys.size(); i++) {
+            assertTrue(keys.get(i - 1).compareTo(keys.get(i)) < 0, keys.get(i - 1) + " before " + keys.get(i));
+        }
+    }
+}
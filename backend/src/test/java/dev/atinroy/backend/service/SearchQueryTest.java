@@ -0,0 +1,67 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks how search queries become tsquery text, and that a hit's position in
+ * the ranking survives the trip through a cursor unchanged.
+ */
+class SearchQueryTest {
+
+    private final CursorPagination cursorPagination = new CursorPagination();
+
+    @Test
+    void everyWordBecomesAPrefixTerm() {
+        assertEquals("deep:* & work:*", SearchService.toPrefixQuery("Deep work", 8));
+    }
+
+    @Test
+    void tsqueryOperatorsAreStripped() {
+        assertEquals("a:* & b:* & c:* & d:* & e:*",
+                SearchService.toPrefixQuery("a & !b | (c <-> d):* 'e'", 8));
+    }
+
+    @Test
+    void wordsPastMaxTermsAreIgnored() {
+        assertEquals("one:* & two:*", SearchService.toPrefixQuery("one two three four", 2));
+    }
+
+    @Test
+    void lettersAndDigitsOfAnyScriptAreKept() {
+        assertEquals("über:* & café:* & 東京:* & ٣٤:*", SearchService.toPrefixQuery("ÜBER café 東京 ٣٤", 8));
+    }
+
+    @Test
+    void queriesWithoutWordsAreRejected() {
+        assertThrows(ValidationException.class, () -> SearchService.toPrefixQuery(" & | !():* ", 8));
+    }
+
+    @Test
+    void positionSurvivesTheCursor() {
+        SearchService.Position position = new SearchService.Position(0.1f / 3, "TIME_BLOCK");
+
+        String cursor = cursorPagination.encode(42L, position.format());
+        CursorPagination.Cursor<SearchService.Position> decoded =
+                cursorPagination.decode(cursor, SearchService.Position::parse);
+
+        assertEquals(42L, decoded.id());
+        assertEquals(position, decoded.sortKey());
+    }
+
+    @Test
+    void malformedPositionsAreRejected() {
+        for (String sortKey : new String[] {"0.5", "high,TODO", "0.5,NOTE", "0.5,"}) {
+            String cursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(("1:" + sortKey).getBytes(StandardCharsets.UTF_8));
+            assertThrows(ValidationException.class,
+                    () -> cursorPagination.decode(cursor, SearchService.Position::parse), sortKey);
+        }
+    }
+}
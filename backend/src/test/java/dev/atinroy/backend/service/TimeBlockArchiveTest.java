@@ -0,0 +1,125 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.dto.auth.RegisterRequest;
+import dev.atinroy.backend.dto.stats.DailyStatsResponse;
+import dev.atinroy.backend.dto.stats.LifetimeStatsResponse;
+import dev.atinroy.backend.dto.stats.TagTimeBreakdown;
+import dev.atinroy.backend.dto.tag.TagRequest;
+import dev.atinroy.backend.dto.timeblock.ImportTimeBlockRequest;
+import dev.atinroy.backend.dto.timeblock.ImportTimeBlocksRequest;
+import dev.atinroy.backend.dto.timeblock.TimeBlockResponse;
+import dev.atinroy.backend.entity.BlockMode;
+import dev.atinroy.backend.entity.BlockPurpose;
+import dev.atinroy.backend.exception.ValidationException;
+import dev.atinroy.backend.repository.ArchivedTimeBlockRepository;
+import dev.atinroy.backend.repository.TimeBlockRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Archives a tagged focus block from past the hot window against the local
+ * Postgres database. Every read that falls through to the archive returns the
+ * same thing afterwards, and writes to the archived block are refused.
+ * <p>
+ * The persistence context is flushed and cleared between steps, and everything
+ * is rolled back afterwards.
+ */
+@SpringBootTest
+@Transactional
+class TimeBlockArchiveTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private TagService tagService;
+
+    @Autowired
+    private TimeBlockService timeBlockService;
+
+    @Autowired
+    private TimeBlockArchiveService timeBlockArchiveService;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private TimeBlockRepository timeBlockRepository;
+
+    @Autowired
+    private ArchivedTimeBlockRepository archivedTimeBlockRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long userId;
+
+    private LocalDate day;
+
+    private Long blockId;
+
+    @BeforeEach
+    void importOldBlock() {
+        String name = "time-block-archive-" + UUID.randomUUID().toString().substring(0, 8);
+        userId = authService.register(new RegisterRequest(name + "@example.com", name, "password")).getUserId();
+        Long tagId = tagService.createTag(new TagRequest("Reading", "336699"), userId).getId();
+        nextRequest();
+
+        day = timeBlockArchiveService.getHotWindowStart().toLocalDate().minusDays(30);
+        LocalDateTime startedAt = day.atTime(9, 0);
+        ImportTimeBlockRequest row = new ImportTimeBlockRequest(BlockPurpose.FOCUS, BlockMode.STOPWATCH,
+                startedAt, startedAt.plusMinutes(25), null, null, tagId, null);
+        timeBlockService.importTimeBlocks(new ImportTimeBlocksRequest(List.of(row)), userId);
+        nextRequest();
+
+        blockId = statsService.getDailyStats(userId, day).getTimeline().get(0).getId();
+    }
+
+    @Test
+    void archivingLeavesEveryReadUnchanged() {
+        DailyStatsResponse daily = statsService.getDailyStats(userId, day);
+        List<TagTimeBreakdown> tagBreakdown = statsService.getTagBreakdown(userId);
+        LifetimeStatsResponse lifetime = statsService.getLifetimeStats(userId);
+        TimeBlockResponse timeBlock = timeBlockService.getTimeBlockById(blockId, userId);
+
+        archive();
+
+        assertFalse(timeBlockRepository.existsById(blockId));
+        assertTrue(archivedTimeBlockRepository.existsById(blockId));
+        assertEquals(daily, statsService.getDailyStats(userId, day));
+        assertEquals(tagBreakdown, statsService.getTagBreakdown(userId));
+        assertEquals(lifetime, statsService.getLifetimeStats(userId));
+        assertEquals(timeBlock, timeBlockService.getTimeBlockById(blockId, userId));
+    }
+
+    @Test
+    void archivedBlocksAreReadOnly() {
+        archive();
+
+        assertThrows(ValidationException.class, () -> timeBlockService.deleteTimeBlock(blockId, userId));
+    }
+
+    private void archive() {
+        archivedTimeBlockRepository.archiveEndedBefore(userId, timeBlockArchiveService.getHotWindowStart(), 1000);
+        nextRequest();
+    }
+
+    private void nextRequest() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
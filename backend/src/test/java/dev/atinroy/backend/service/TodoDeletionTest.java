@@ -0,0 +1,125 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.dto.auth.AuthResponse;
+import dev.atinroy.backend.dto.auth.RegisterRequest;
+import dev.atinroy.backend.dto.timeblock.EndTimeBlockRequest;
+import dev.atinroy.backend.dto.timeblock.StartTimeBlockRequest;
+import dev.atinroy.backend.dto.timeblock.TimeBlockResponse;
+import dev.atinroy.backend.dto.todo.BulkTodoOperation;
+import dev.atinroy.backend.dto.todo.BulkTodoRequest;
+import dev.atinroy.backend.dto.todo.TodoRequest;
+import dev.atinroy.backend.entity.BlockMode;
+import dev.atinroy.backend.entity.BlockPurpose;
+import dev.atinroy.backend.repository.TimeBlockRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Deletes a todo while a time block on it is still running, then ends the
+ * block, against the local Postgres database. Blocks that had already ended
+ * keep their todo.
+ * <p>
+ * The persistence context is flushed and cleared between steps, so each one
+ * loads its rows fresh the way separate requests would. Everything is rolled
+ * back afterwards.
+ */
+@SpringBootTest
+@Transactional
+class TodoDeletionTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private TimeBlockService timeBlockService;
+
+    @Autowired
+    private TimeBlockRepository timeBlockRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long userId;
+
+    @BeforeEach
+    void registerUser() {
+        String name = "todo-deletion-" + UUID.randomUUID().toString().substring(0, 8);
+        AuthResponse response = authService.register(new RegisterRequest(name + "@example.com", name, "password"));
+        userId = response.getUserId();
+    }
+
+    @Test
+    void deletingATodoDetachesItsRunningBlock() {
+        Long todoId = createTodo();
+        Long blockId = startBlock(todoId);
+
+        todoService.deleteTodo(todoId, userId);
+        nextRequest();
+
+        TimeBlockResponse ended = timeBlockService.endTimeBlock(blockId, new EndTimeBlockRequest(), userId);
+        assertNotNull(ended.getEndedAt());
+        assertNull(ended.getTodo());
+    }
+
+    @Test
+    void bulkDeletingTodosDetachesTheirRunningBlock() {
+        Long todoId = createTodo();
+        Long blockId = startBlock(todoId);
+
+        BulkTodoRequest request = new BulkTodoRequest();
+        request.setOperation(BulkTodoOperation.DELETE);
+        request.setIds(List.of(todoId));
+        todoService.applyBulkOperation(request, userId);
+        nextRequest();
+
+        TimeBlockResponse ended = timeBlockService.endTimeBlock(blockId, new EndTimeBlockRequest(), userId);
+        assertNotNull(ended.getEndedAt());
+        assertNull(ended.getTodo());
+    }
+
+    @Test
+    void deletingATodoLeavesEndedBlocksLinked() {
+        Long todoId = createTodo();
+        Long blockId = startBlock(todoId);
+        timeBlockService.endTimeBlock(blockId, new EndTimeBlockRequest(), userId);
+        nextRequest();
+
+        todoService.deleteTodo(todoId, userId);
+        nextRequest();
+
+        assertEquals(todoId, timeBlockRepository.findById(blockId).orElseThrow().getTodo().getId());
+    }
+
+    private Long createTodo() {
+        Long todoId = todoService.createTodo(new TodoRequest("Write report", null, null, null), userId).getId();
+        nextRequest();
+        return todoId;
+    }
+
+    private Long startBlock(Long todoId) {
+        StartTimeBlockRequest request = new StartTimeBlockRequest(
+                BlockPurpose.FOCUS, BlockMode.STOPWATCH, todoId, null, null);
+        Long blockId = timeBlockService.startTimeBlock(request, userId).getId();
+        nextRequest();
+        return blockId;
+    }
+
+    private void nextRequest() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,143 @@
+package dev.atinroy.backend.service;
+
+import dev.atinroy.backend.dto.auth.RegisterRequest;
+import dev.atinroy.backend.dto.todo.MoveTodoRequest;
+import dev.atinroy.backend.dto.todo.TodoRequest;
+import dev.atinroy.backend.dto.todo.TodoResponse;
+import dev.atinroy.backend.entity.Todo;
+import dev.atinroy.backend.repository.TodoRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Moves and rebalances the manual order of a fresh user's todos against the
+ * local Postgres database.
+ * <p>
+ * Every test starts from three todos created in order, keyed a0, a1 and a2.
+ * The persistence context is flushed and cleared between steps, and everything
+ * is rolled back afterwards.
+ */
+@SpringBootTest
+@Transactional
+class TodoOrderTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private TodoRebalanceService todoRebalanceService;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long userId;
+
+    private Long first;
+
+    private Long second;
+
+    private Long third;
+
+    @BeforeEach
+    void createTodos() {
+        String name = "todo-order-" + UUID.randomUUID().toString().substring(0, 8);
+        userId = authService.register(new RegisterRequest(name + "@example.com", name, "password")).getUserId();
+        first = createTodo("First");
+        second = createTodo("Second");
+        third = createTodo("Third");
+        nextRequest();
+    }
+
+    @Test
+    void movingToTheTopGoesBeforeTheFirstTodo() {
+        move(third, null);
+
+        assertEquals(List.of(third, first, second), manualOrder());
+    }
+
+    @Test
+    void movingToTheEndGoesAfterTheLastTodo() {
+        move(first, third);
+
+        assertEquals(List.of(second, third, first), manualOrder());
+    }
+
+    // The todo after `first` is the one being moved, so its neighbours are first and third
+    @Test
+    void movingInPlaceLooksPastTheMovedTodo() {
+        TodoResponse moved = move(second, first);
+
+        assertEquals(List.of(first, second, third), manualOrder());
+        assertTrue(sortKey(first).compareTo(moved.getSortKey()) < 0);
+        assertTrue(moved.getSortKey().compareTo(sortKey(third)) < 0);
+    }
+
+    @Test
+    void movingIntoAGapBetweenEqualKeysRespacesThemFirst() {
+        setSortKey(second, sortKey(first));
+
+        move(third, first);
+
+        assertEquals(List.of(first, third, second), manualOrder());
+        assertEquals(3, manualOrder().stream().map(this::sortKey).distinct().count());
+    }
+
+    @Test
+    void nightlyRebalanceRespacesLongKeysInOrder() {
+        setSortKey(second, "a0" + "V".repeat(30));
+
+        todoRebalanceService.rebalanceLongSortKeys();
+        nextRequest();
+
+        assertEquals(List.of(first, second, third), manualOrder());
+        assertEquals(RankKeys.spaced(3), manualOrder().stream().map(this::sortKey).toList());
+    }
+
+    private Long createTodo(String title) {
+        return todoService.createTodo(new TodoRequest(title, null, null, null), userId).getId();
+    }
+
+    private TodoResponse move(Long todoId, Long afterId) {
+        TodoResponse moved = todoService.moveTodo(todoId, new MoveTodoRequest(afterId), userId);
+        nextRequest();
+        return moved;
+    }
+
+    private List<Long> manualOrder() {
+        return todoService.getIncompleteTodosInManualOrder(userId).stream()
+                .map(TodoResponse::getId)
+                .toList();
+    }
+
+    private String sortKey(Long todoId) {
+        return todoService.getTodoById(todoId, userId).getSortKey();
+    }
+
+    private void setSortKey(Long todoId, String sortKey) {
+        Todo todo = todoRepository.findById(todoId).orElseThrow();
+        todo.setSortKey(sortKey);
+        todoRepository.save(todo);
+        nextRequest();
+    }
+
+    private void nextRequest() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}